@@ -0,0 +1,162 @@
+package benchmark;
+
+import control.MascotaDAO;
+import entity.Cita;
+import entity.HistorialMedico;
+import entity.Mascota;
+import entity.Propietario;
+import entity.RecordatorioVacuna;
+import entity.Usuario;
+import entity.Vacuna;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceConfiguration;
+import jakarta.persistence.PersistenceUnitTransactionType;
+import jakarta.persistence.SharedCacheMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * findRange, count y findAll de AbstractDataPersistence contra H2 en memoria.
+ * Con tan pocas filas y sin red, el tiempo lo dominan la construcción de la CriteriaQuery,
+ * su traducción a SQL y la hidratación; planCache=false muestra cuánto ahorra
+ * hibernate.criteria.plan_cache_enabled en la traducción.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsultasBenchmark {
+
+    private static final int PROPIETARIOS = 100;
+
+    /**
+     * El DAO de la aplicación con el EntityManager del benchmark en lugar del inyectado.
+     */
+    private static final class Mascotas extends MascotaDAO {
+        private EntityManager em;
+
+        @Override
+        public EntityManager getEntityManager() {
+            return em;
+        }
+    }
+
+    @Param({"true", "false"})
+    public boolean planCache;
+
+    @Param({"1000"})
+    public int filas;
+
+    private EntityManagerFactory emf;
+
+    private EntityManager em;
+
+    private Mascotas dao;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        PersistenceConfiguration configuracion = new PersistenceConfiguration("benchmark")
+                .provider("org.hibernate.jpa.HibernatePersistenceProvider")
+                .transactionType(PersistenceUnitTransactionType.RESOURCE_LOCAL)
+                .sharedCacheMode(SharedCacheMode.NONE);
+        for (Class<?> entidad : List.of(Cita.class, Mascota.class, Usuario.class, Vacuna.class,
+                HistorialMedico.class, Propietario.class, RecordatorioVacuna.class)) {
+            configuracion.managedClass(entidad);
+        }
+        emf = configuracion
+                .property(PersistenceConfiguration.JDBC_URL, "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1")
+                .property(PersistenceConfiguration.JDBC_USER, "sa")
+                .property(PersistenceConfiguration.JDBC_PASSWORD, "")
+                .property(PersistenceConfiguration.SCHEMAGEN_DATABASE_ACTION, "drop-and-create")
+                .property("hibernate.criteria.plan_cache_enabled", String.valueOf(planCache))
+                .property("hibernate.jdbc.batch_size", "50")
+                .property("hibernate.order_inserts", "true")
+                .createEntityManagerFactory();
+        cargar();
+
+        em = emf.createEntityManager();
+        dao = new Mascotas();
+        dao.em = em;
+    }
+
+    private void cargar() {
+        EntityManager carga = emf.createEntityManager();
+        try {
+            carga.getTransaction().begin();
+            Propietario[] propietarios = new Propietario[PROPIETARIOS];
+            for (int i = 0; i < PROPIETARIOS; i++) {
+                Propietario propietario = Datos.propietario(i + 1);
+                propietario.setId(null);
+                propietario.setVersion(null);
+                carga.persist(propietario);
+                propietarios[i] = propietario;
+            }
+            for (int i = 0; i < filas; i++) {
+                Mascota mascota = Datos.mascotaSimple(i + 1);
+                mascota.setId(null);
+                mascota.setVersion(null);
+                mascota.setIdPropietario(propietarios[i % PROPIETARIOS]);
+                carga.persist(mascota);
+                if (i % 50 == 49) {
+                    carga.flush();
+                    carga.clear();
+                    for (int j = 0; j < PROPIETARIOS; j++) {
+                        propietarios[j] = carga.getReference(Propietario.class, propietarios[j].getId());
+                    }
+                }
+            }
+            carga.getTransaction().commit();
+        } finally {
+            carga.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        em.close();
+        emf.close();
+    }
+
+    /**
+     * Página del medio de /listar/rango por OFFSET.
+     */
+    @Benchmark
+    public List<Mascota> findRange() {
+        try {
+            return dao.findRange(filas / 2, 20, MascotaDAO.GRAFO_LISTA);
+        } finally {
+            em.clear(); // cada invocación hidrata de nuevo, como cada petición
+        }
+    }
+
+    @Benchmark
+    public int count() {
+        return dao.count();
+    }
+
+    @Benchmark
+    public List<Mascota> findAll() {
+        try {
+            return dao.findAll(MascotaDAO.GRAFO_LISTA);
+        } finally {
+            em.clear();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package benchmark;
+
+import entity.Cita;
+import entity.HistorialMedico;
+import entity.Mascota;
+import entity.Propietario;
+import entity.Usuario;
+import entity.Vacuna;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grafos de entidades con tamaños y textos parecidos a los de producción.
+ * Los IDs se asignan a mano: @JsonIdentityInfo los usa como identidad.
+ */
+final class Datos {
+
+    static final String OBSERVACIONES = "Paciente tranquilo durante la consulta. Se recomienda control de peso, "
+            + "dieta balanceada y desparasitación cada tres meses. Sin antecedentes de alergias conocidas. "
+            + "El propietario reporta buen apetito y actividad normal en las últimas semanas.";
+
+    private static final String[] ESPECIES = {"Perro", "Gato", "Conejo", "Ave"};
+
+    private static final String[] ESTADOS = {"pendiente", "realizada", "cancelada"};
+
+    private Datos() {
+    }
+
+    static List<Usuario> veterinarios(int cantidad) {
+        List<Usuario> veterinarios = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            Usuario veterinario = new Usuario();
+            veterinario.setId(i);
+            veterinario.setVersion(0L);
+            veterinario.setNombre("Dra. Veterinaria " + i);
+            veterinario.setCorreo("vet" + i + "@mascotas.sv");
+            veterinario.setContrasena("x");
+            veterinario.setRol("veterinario");
+            veterinarios.add(veterinario);
+        }
+        return veterinarios;
+    }
+
+    static Propietario propietario(int id) {
+        Propietario propietario = new Propietario();
+        propietario.setId(id);
+        propietario.setVersion(0L);
+        propietario.setNombre("Propietario " + id);
+        propietario.setDui(String.format("%08d-%d", id, id % 10));
+        propietario.setTelefono("7000-" + String.format("%04d", id % 10_000));
+        propietario.setCorreo("propietario" + id + "@correo.sv");
+        propietario.setDireccion("Colonia Escalón, calle " + id + ", San Salvador");
+        return propietario;
+    }
+
+    /**
+     * Mascota con sus citas (repartidas entre los veterinarios, que se repiten),
+     * vacunas e historial, como en /mascotas/obtener/{id}.
+     */
+    static Mascota mascota(int id, int citas, List<Usuario> veterinarios) {
+        Mascota mascota = mascotaSimple(id);
+        List<Cita> listaCitas = new ArrayList<>(citas);
+        List<Vacuna> vacunas = new ArrayList<>();
+        List<HistorialMedico> historial = new ArrayList<>();
+        for (int i = 0; i < citas; i++) {
+            Usuario veterinario = veterinarios.get(i % veterinarios.size());
+            Cita cita = cita(id * 1_000 + i, veterinario);
+            cita.setIdMascota(mascota);
+            listaCitas.add(cita);
+            if (i % 4 == 0) {
+                Vacuna vacuna = new Vacuna();
+                vacuna.setId(id * 1_000 + i);
+                vacuna.setVersion(0L);
+                vacuna.setTipoVacuna("Antirrábica");
+                vacuna.setLote("L-" + i);
+                vacuna.setFechaAplicacion(LocalDate.of(2025, 1, 1).plusDays(i));
+                vacuna.setProximaDosis(LocalDate.of(2026, 1, 1).plusDays(i));
+                vacuna.setIdMascota(mascota);
+                vacuna.setIdVeterinario(veterinario);
+                vacunas.add(vacuna);
+            }
+            if (i % 2 == 0) {
+                HistorialMedico entrada = new HistorialMedico();
+                entrada.setId(id * 1_000 + i);
+                entrada.setVersion(0L);
+                entrada.setFecha(LocalDate.of(2025, 1, 1).plusDays(i));
+                entrada.setDiagnostico("Control general");
+                entrada.setTratamiento("Vitaminas por 15 días");
+                entrada.setObservaciones(OBSERVACIONES);
+                entrada.setIdMascota(mascota);
+                entrada.setIdVeterinario(veterinario);
+                historial.add(entrada);
+            }
+        }
+        mascota.setCitas(listaCitas);
+        mascota.setVacunas(vacunas);
+        mascota.setHistorialMedico(historial);
+        return mascota;
+    }
+
+    /**
+     * Mascota sin colecciones, como en /mascotas/listar.
+     */
+    static Mascota mascotaSimple(int id) {
+        Mascota mascota = new Mascota();
+        mascota.setId(id);
+        mascota.setVersion(0L);
+        mascota.setNombre("Mascota " + id);
+        mascota.setEspecie(ESPECIES[id % ESPECIES.length]);
+        mascota.setRaza("Mestizo");
+        mascota.setEdad(id % 15);
+        mascota.setSexo(id % 2 == 0 ? "Macho" : "Hembra");
+        mascota.setColor("Café");
+        mascota.setPeso(new BigDecimal("12.50"));
+        mascota.setObservaciones(OBSERVACIONES);
+        return mascota;
+    }
+
+    /**
+     * Citas de un listado: cada veterinario aparece muchas veces.
+     */
+    static List<Cita> citas(int cantidad, List<Usuario> veterinarios) {
+        List<Cita> citas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            citas.add(cita(i + 1, veterinarios.get(i % veterinarios.size())));
+        }
+        return citas;
+    }
+
+    static Cita cita(int id, Usuario veterinario) {
+        Cita cita = new Cita();
+        cita.setId(id);
+        cita.setVersion(0L);
+        cita.setFecha(LocalDate.of(2025, 8, 1).plusDays(id % 60));
+        cita.setHora(LocalTime.of(8, 0).plusMinutes(30L * (id % 20)));
+        cita.setMotivo("Control anual y vacunación");
+        cita.setEstado(ESTADOS[id % ESTADOS.length]);
+        cita.setNotas("Traer carné de vacunación.");
+        cita.setIdVeterinario(veterinario);
+        return cita;
+    }
+}
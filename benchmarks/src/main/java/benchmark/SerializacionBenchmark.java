@@ -0,0 +1,105 @@
+package benchmark;
+
+import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import config.ObjectMapperProvider;
+import entity.Cita;
+import entity.HistorialMedico;
+import entity.Mascota;
+import entity.Propietario;
+import entity.Usuario;
+import entity.Vacuna;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de los grafos que devuelven los endpoints, con el ObjectMapper de
+ * ObjectMapperProvider tal cual. Las variantes "sinIdentidad" quitan @JsonIdentityInfo
+ * con un mix-in para medir lo que cuesta el registro de identidades.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    @JsonIdentityInfo(generator = ObjectIdGenerators.None.class)
+    private abstract static class SinIdentidad {
+    }
+
+    /**
+     * Citas de la mascota en el detalle, y citas o mascotas por página en los listados.
+     */
+    @Param({"10", "100"})
+    public int tamano;
+
+    private ObjectMapper mapper;
+
+    private ObjectMapper mapperSinIdentidad;
+
+    private Mascota mascotaDetalle;
+
+    private List<Mascota> mascotas;
+
+    private List<Cita> citas;
+
+    @Setup
+    public void preparar() {
+        mapper = new ObjectMapperProvider().getContext(ObjectMapper.class);
+        mapperSinIdentidad = mapper.copy();
+        for (Class<?> tipo : List.of(Mascota.class, Cita.class, Usuario.class, Vacuna.class,
+                HistorialMedico.class, Propietario.class)) {
+            mapperSinIdentidad.addMixIn(tipo, SinIdentidad.class);
+        }
+
+        List<Usuario> veterinarios = Datos.veterinarios(5);
+        mascotaDetalle = Datos.mascota(1, tamano, veterinarios);
+        mascotas = new ArrayList<>(tamano);
+        for (int i = 1; i <= tamano; i++) {
+            mascotas.add(Datos.mascotaSimple(i));
+        }
+        citas = Datos.citas(tamano, veterinarios);
+    }
+
+    @Benchmark
+    public byte[] mascotaDetalle() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(mascotaDetalle);
+    }
+
+    @Benchmark
+    public byte[] mascotaDetalleSinIdentidad() throws JsonProcessingException {
+        return mapperSinIdentidad.writeValueAsBytes(mascotaDetalle);
+    }
+
+    @Benchmark
+    public byte[] listaMascotas() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(mascotas);
+    }
+
+    @Benchmark
+    public byte[] listaCitas() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(citas);
+    }
+
+    @Benchmark
+    public byte[] listaCitasSinIdentidad() throws JsonProcessingException {
+        return mapperSinIdentidad.writeValueAsBytes(citas);
+    }
+}
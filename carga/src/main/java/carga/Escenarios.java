@@ -0,0 +1,74 @@
+package carga;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Peticiones GET que componen la mezcla de carga. Cada escenario arma la ruta (relativa a
+ * carga.url) con IDs y fechas al azar entre los datos sembrados.
+ * Los listados sin paginar de citas y mascotas no se incluyen: con la base a escala
+ * miden el tamaño de la respuesta, no el servidor.
+ */
+final class Escenarios {
+
+    static final Map<String, Function<Sembrado.Datos, String>> TODOS = new LinkedHashMap<>();
+
+    static {
+        TODOS.put("mascotas-rango", datos -> "/mascotas/listar/rango?size=50");
+        TODOS.put("mascotas-obtener", datos -> "/mascotas/obtener/" + alAzar(datos.mascotas()));
+        TODOS.put("mascotas-filtro", datos -> "/mascotas/listar/rango?size=50&start=" + azar().nextInt(0, 1_000)
+                + "&filtro=especie:eq:Gato&orden=nombre&fields=nombre,especie,raza");
+        TODOS.put("citas-rango", datos -> "/citas/listar/rango?size=50&filtro=veterinario:eq:" + alAzar(datos.veterinarios())
+                + "&filtro=fecha:ge:" + diaAlAzar(datos) + "&orden=fecha,hora");
+        TODOS.put("citas-obtener", datos -> "/citas/obtener/" + alAzar(datos.citas()));
+        TODOS.put("citas-disponibilidad", datos -> "/citas/disponibilidad?veterinario=" + alAzar(datos.veterinarios())
+                + "&fecha=" + diaAlAzar(datos));
+        TODOS.put("usuarios-listar", datos -> "/usuarios/listar");
+        TODOS.put("usuarios-obtener", datos -> "/usuarios/obtener/" + alAzar(datos.usuarios()));
+    }
+
+    /**
+     * Escenario con su peso en la mezcla.
+     */
+    record Peso(String nombre, int peso) {
+    }
+
+    private Escenarios() {
+    }
+
+    /**
+     * Lee la mezcla "escenario:peso,escenario:peso".
+     * @throws IllegalArgumentException si un escenario no existe o un peso no es positivo.
+     */
+    static List<Peso> mezcla(String texto) {
+        List<Peso> mezcla = new ArrayList<>();
+        for (String parte : texto.split(",")) {
+            String[] campos = parte.trim().split(":");
+            if (campos.length != 2 || !TODOS.containsKey(campos[0])) {
+                throw new IllegalArgumentException("Escenario no válido: " + parte + ". Disponibles: " + TODOS.keySet());
+            }
+            int peso = Integer.parseInt(campos[1]);
+            if (peso <= 0) {
+                throw new IllegalArgumentException("El peso debe ser positivo: " + parte);
+            }
+            mezcla.add(new Peso(campos[0], peso));
+        }
+        return List.copyOf(mezcla);
+    }
+
+    private static int alAzar(int[] ids) {
+        return ids[azar().nextInt(ids.length)];
+    }
+
+    private static String diaAlAzar(Sembrado.Datos datos) {
+        return Sembrado.PRIMER_DIA.plusDays(azar().nextInt(datos.dias())).toString();
+    }
+
+    private static ThreadLocalRandom azar() {
+        return ThreadLocalRandom.current();
+    }
+}
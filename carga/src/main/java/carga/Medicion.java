@@ -0,0 +1,53 @@
+package carga;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias (en microsegundos) y conteos de un escenario. Los hilos registran en paralelo.
+ */
+final class Medicion {
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    /**
+     * Resultado de un escenario; las latencias en milisegundos.
+     */
+    record Resumen(String nombre, long peticiones, long errores, double rps,
+                   double p50, double p99, double p999, double max) {
+
+        double tasaErrores() {
+            return peticiones == 0 ? 0 : (double) errores / peticiones;
+        }
+    }
+
+    private final Histogram latencias = new ConcurrentHistogram(MAX_MICROS, 3);
+
+    private final LongAdder peticiones = new LongAdder();
+
+    private final LongAdder errores = new LongAdder();
+
+    void registrar(long micros, boolean correcta) {
+        latencias.recordValue(Math.min(Math.max(micros, 1), MAX_MICROS));
+        peticiones.increment();
+        if (!correcta) {
+            errores.increment();
+        }
+    }
+
+    Resumen resumen(String nombre, double segundos) {
+        long total = peticiones.sum();
+        return new Resumen(nombre, total, errores.sum(), total / segundos,
+                milisegundos(latencias.getValueAtPercentile(50)),
+                milisegundos(latencias.getValueAtPercentile(99)),
+                milisegundos(latencias.getValueAtPercentile(99.9)),
+                milisegundos(latencias.getMaxValue()));
+    }
+
+    private static double milisegundos(long micros) {
+        return micros / 1_000.0;
+    }
+}
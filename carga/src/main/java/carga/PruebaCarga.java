@@ -0,0 +1,155 @@
+package carga;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * Prueba de carga de lazo cerrado: carga.concurrencia clientes virtuales piden, esperan la
+ * respuesta y vuelven a pedir, eligiendo el escenario según los pesos de carga.mezcla.
+ * Tras el calentamiento mide durante carga.duracion y deja en carga.resultado un JSON con
+ * throughput y p50/p99/p999 por escenario, para comparar entre versiones.
+ * Al ser de lazo cerrado, una pausa larga del servidor frena también a los clientes:
+ * los percentiles altos son una cota inferior de lo que vería un tráfico abierto.
+ */
+public final class PruebaCarga {
+
+    private static final Logger LOG = Logger.getLogger(PruebaCarga.class.getName());
+
+    private static final Duration TIEMPO_MAXIMO_PETICION = Duration.ofSeconds(30);
+
+    private PruebaCarga() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = propiedad("carga.url", "http://localhost:9190/mascotas");
+        int concurrencia = Integer.parseInt(propiedad("carga.concurrencia", "32"));
+        Duration calentamiento = Duration.parse(propiedad("carga.calentamiento", "PT30S"));
+        Duration duracion = Duration.parse(propiedad("carga.duracion", "PT2M"));
+        List<Escenarios.Peso> mezcla = Escenarios.mezcla(propiedad("carga.mezcla",
+                "mascotas-rango:20,mascotas-obtener:25,mascotas-filtro:10,citas-rango:15,citas-obtener:15,"
+                        + "citas-disponibilidad:5,usuarios-listar:5,usuarios-obtener:5"));
+
+        Sembrado.Datos datos = Sembrado.sembrar(
+                propiedad("carga.jdbc.url", "jdbc:postgresql://localhost:55432/mascotas"),
+                propiedad("carga.jdbc.usuario", "admin"),
+                propiedad("carga.jdbc.contrasena", "admin"),
+                Integer.parseInt(propiedad("carga.mascotas", "100000")),
+                Integer.parseInt(propiedad("carga.citas", "1000000")));
+        LOG.info(datos.mascotas().length + " mascotas, " + datos.citas().length + " citas, "
+                + datos.usuarios().length + " usuarios");
+
+        Map<String, Medicion> mediciones = new LinkedHashMap<>();
+        mezcla.forEach(peso -> mediciones.put(peso.nombre(), new Medicion()));
+        int[] acumulados = new int[mezcla.size()];
+        int total = 0;
+        for (int i = 0; i < mezcla.size(); i++) {
+            total += mezcla.get(i).peso();
+            acumulados[i] = total;
+        }
+        int pesoTotal = total;
+
+        HttpClient cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long inicioMedicion = System.nanoTime() + calentamiento.toNanos();
+        long fin = inicioMedicion + duracion.toNanos();
+
+        LOG.info("Carga contra " + url + ": " + concurrencia + " clientes, calentamiento " + calentamiento
+                + ", medición " + duracion);
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrencia; c++) {
+                clientes.submit(() -> {
+                    while (System.nanoTime() < fin) {
+                        int sorteo = ThreadLocalRandom.current().nextInt(pesoTotal);
+                        int i = 0;
+                        while (acumulados[i] <= sorteo) {
+                            i++;
+                        }
+                        String nombre = mezcla.get(i).nombre();
+                        HttpRequest peticion = HttpRequest.newBuilder(URI.create(url + Escenarios.TODOS.get(nombre).apply(datos)))
+                                .timeout(TIEMPO_MAXIMO_PETICION)
+                                .GET()
+                                .build();
+                        long inicio = System.nanoTime();
+                        boolean correcta;
+                        try {
+                            int estado = cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            correcta = estado < 400;
+                        } catch (IOException e) {
+                            correcta = false;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        long termino = System.nanoTime();
+                        if (inicio >= inicioMedicion && termino <= fin) {
+                            mediciones.get(nombre).registrar((termino - inicio) / 1_000, correcta);
+                        }
+                    }
+                });
+            }
+        }
+
+        double segundos = duracion.toNanos() / 1e9;
+        List<Medicion.Resumen> resumenes = new ArrayList<>();
+        mediciones.forEach((nombre, medicion) -> resumenes.add(medicion.resumen(nombre, segundos)));
+        imprimir(resumenes);
+
+        Path resultado = Path.of(propiedad("carga.resultado", "target/carga/resultado.json"));
+        Files.createDirectories(resultado.toAbsolutePath().getParent());
+        Files.writeString(resultado, json(resumenes, concurrencia, duracion), StandardCharsets.UTF_8);
+        LOG.info("Resultado en " + resultado.toAbsolutePath());
+
+        String rutaUmbrales = System.getProperty("carga.umbrales");
+        List<String> superados = Umbrales.leer(rutaUmbrales == null ? null : Path.of(rutaUmbrales)).superados(resumenes);
+        superados.forEach(linea -> LOG.warning("Umbral superado: " + linea));
+        Path archivoSuperados = Path.of(propiedad("carga.superados", "target/carga/umbrales-superados.txt"));
+        Files.createDirectories(archivoSuperados.toAbsolutePath().getParent());
+        Files.write(archivoSuperados, superados, StandardCharsets.UTF_8);
+    }
+
+    private static void imprimir(List<Medicion.Resumen> resumenes) {
+        System.out.printf("%-22s %10s %8s %9s %9s %9s %9s %9s%n",
+                "escenario", "peticiones", "errores", "rps", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Medicion.Resumen r : resumenes) {
+            System.out.printf(Locale.ROOT, "%-22s %10d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    r.nombre(), r.peticiones(), r.errores(), r.rps(), r.p50(), r.p99(), r.p999(), r.max());
+        }
+    }
+
+    private static String json(List<Medicion.Resumen> resumenes, int concurrencia, Duration duracion) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"concurrencia\": ").append(concurrencia)
+                .append(",\n  \"duracionSegundos\": ").append(duracion.toSeconds())
+                .append(",\n  \"escenarios\": {");
+        for (int i = 0; i < resumenes.size(); i++) {
+            Medicion.Resumen r = resumenes.get(i);
+            sb.append(i == 0 ? "\n" : ",\n").append(String.format(Locale.ROOT,
+                    "    \"%s\": {\"peticiones\": %d, \"errores\": %d, \"rps\": %.2f, "
+                            + "\"p50\": %.3f, \"p99\": %.3f, \"p999\": %.3f, \"max\": %.3f}",
+                    r.nombre(), r.peticiones(), r.errores(), r.rps(), r.p50(), r.p99(), r.p999(), r.max()));
+        }
+        return sb.append("\n  }\n}\n").toString();
+    }
+
+    private static String propiedad(String nombre, String porDefecto) {
+        return System.getProperty(nombre, porDefecto);
+    }
+}
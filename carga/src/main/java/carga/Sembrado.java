@@ -0,0 +1,103 @@
+package carga;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Llena la base con datos a escala directamente por SQL (generate_series), mucho más rápido
+ * que por la API. Si ya hay mascotas no siembra nada: una base de una corrida anterior se reutiliza.
+ * Las citas respetan el índice único (veterinario, fecha, hora): cada veterinario tiene
+ * un turno de 30 minutos distinto por cita, 20 por día.
+ */
+final class Sembrado {
+
+    private static final Logger LOG = Logger.getLogger(Sembrado.class.getName());
+
+    static final int VETERINARIOS = 50;
+
+    static final int TURNOS_POR_DIA = 20;
+
+    static final LocalDate PRIMER_DIA = LocalDate.of(2024, 1, 1);
+
+    /**
+     * IDs existentes, para que los escenarios pidan filas que sí están.
+     */
+    record Datos(int[] mascotas, int[] citas, int[] veterinarios, int[] usuarios, int dias) {
+    }
+
+    private Sembrado() {
+    }
+
+    static Datos sembrar(String url, String usuario, String contrasena, int mascotas, int citas) throws SQLException {
+        try (Connection conexion = DriverManager.getConnection(url, usuario, contrasena);
+             Statement sentencia = conexion.createStatement()) {
+            if (contar(sentencia, "mascotas") == 0) {
+                long inicio = System.nanoTime();
+                sentencia.executeUpdate("INSERT INTO usuarios (nombre, correo, contrasena, rol) "
+                        + "SELECT 'Veterinario ' || g, 'vet' || g || '@carga.sv', 'x', 'veterinario' "
+                        + "FROM generate_series(1, " + VETERINARIOS + ") g");
+                sentencia.executeUpdate("INSERT INTO propietarios (nombre, dui, direccion, telefono, correo) "
+                        + "SELECT 'Propietario ' || g, lpad(g::text, 8, '0') || '-' || (g % 10), "
+                        + "'Colonia Escalón, San Salvador', '7000-0000', 'propietario' || g || '@correo.sv' "
+                        + "FROM generate_series(1, " + Math.max(1, mascotas / 2) + ") g");
+                sentencia.executeUpdate("WITH p AS (SELECT array_agg(id_propietario ORDER BY id_propietario) ids FROM propietarios) "
+                        + "INSERT INTO mascotas (nombre, especie, raza, edad, sexo, color, peso, observaciones, id_propietario) "
+                        + "SELECT 'Mascota ' || g, (ARRAY['Perro', 'Gato', 'Conejo', 'Ave'])[1 + g % 4], 'Mestizo', g % 15, "
+                        + "CASE WHEN g % 2 = 0 THEN 'Macho' ELSE 'Hembra' END, 'Café', 5 + g % 30, "
+                        + "repeat('Paciente tranquilo, control de peso y desparasitación. ', 10), "
+                        + "p.ids[1 + g % cardinality(p.ids)] "
+                        + "FROM generate_series(0, " + (mascotas - 1) + ") g, p");
+                sentencia.executeUpdate("WITH m AS (SELECT array_agg(id_mascota ORDER BY id_mascota) ids FROM mascotas), "
+                        + "v AS (SELECT array_agg(id_usuario ORDER BY id_usuario) ids FROM usuarios WHERE rol = 'veterinario') "
+                        + "INSERT INTO citas (fecha, hora, motivo, estado, id_mascota, id_veterinario) "
+                        + "SELECT DATE '" + PRIMER_DIA + "' + g / (cardinality(v.ids) * " + TURNOS_POR_DIA + "), "
+                        + "TIME '08:00' + ((g / cardinality(v.ids)) % " + TURNOS_POR_DIA + ") * INTERVAL '30 minutes', "
+                        + "'Control anual y vacunación', (ARRAY['pendiente', 'realizada', 'cancelada'])[1 + g % 3], "
+                        + "m.ids[1 + g % cardinality(m.ids)], v.ids[1 + g % cardinality(v.ids)] "
+                        + "FROM generate_series(0, " + (citas - 1) + ") g, m, v");
+                sentencia.execute("ANALYZE");
+                LOG.info("Base sembrada en " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+            } else {
+                LOG.info("La base ya tiene datos: se reutilizan");
+            }
+
+            int[] veterinarios = ids(sentencia, "SELECT id_usuario FROM usuarios WHERE rol = 'veterinario' ORDER BY 1");
+            int totalCitas = contar(sentencia, "citas");
+            int dias = Math.max(1, totalCitas / Math.max(1, veterinarios.length * TURNOS_POR_DIA));
+            return new Datos(
+                    ids(sentencia, "SELECT id_mascota FROM mascotas ORDER BY 1"),
+                    ids(sentencia, "SELECT id_cita FROM citas ORDER BY 1"),
+                    veterinarios,
+                    ids(sentencia, "SELECT id_usuario FROM usuarios ORDER BY 1"),
+                    dias);
+        }
+    }
+
+    private static int contar(Statement sentencia, String tabla) throws SQLException {
+        try (ResultSet rs = sentencia.executeQuery("SELECT count(*) FROM " + tabla)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static int[] ids(Statement sentencia, String sql) throws SQLException {
+        sentencia.setFetchSize(10_000);
+        try (ResultSet rs = sentencia.executeQuery(sql)) {
+            int[] ids = new int[1024];
+            int n = 0;
+            while (rs.next()) {
+                if (n == ids.length) {
+                    ids = Arrays.copyOf(ids, n * 2);
+                }
+                ids[n++] = rs.getInt(1);
+            }
+            return Arrays.copyOf(ids, n);
+        }
+    }
+}
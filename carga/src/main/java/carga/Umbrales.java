@@ -0,0 +1,67 @@
+package carga;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Límites por escenario leídos de umbrales.properties:
+ * <pre>
+ *   mascotas-obtener.p99=50      # ms, máximo
+ *   mascotas-obtener.p999=200    # ms, máximo
+ *   mascotas-obtener.rps=200     # peticiones por segundo, mínimo
+ *   *.errores=0.001              # fracción de errores, máximo; '*' aplica a todos los escenarios
+ * </pre>
+ * La clave del escenario tiene prioridad sobre la de '*'.
+ */
+final class Umbrales {
+
+    private final Properties valores = new Properties();
+
+    private Umbrales() {
+    }
+
+    static Umbrales leer(Path archivo) throws IOException {
+        Umbrales umbrales = new Umbrales();
+        if (archivo != null && Files.exists(archivo)) {
+            try (Reader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+                umbrales.valores.load(lector);
+            }
+        }
+        return umbrales;
+    }
+
+    /**
+     * Descripción de cada umbral superado; vacía si todo está dentro de los límites.
+     */
+    List<String> superados(List<Medicion.Resumen> resumenes) {
+        List<String> superados = new ArrayList<>();
+        for (Medicion.Resumen r : resumenes) {
+            maximo(superados, r.nombre(), "p99", r.p99());
+            maximo(superados, r.nombre(), "p999", r.p999());
+            maximo(superados, r.nombre(), "errores", r.tasaErrores());
+            Double rps = valor(r.nombre(), "rps");
+            if (rps != null && r.rps() < rps) {
+                superados.add(String.format("%s: rps %.1f < %.1f", r.nombre(), r.rps(), rps));
+            }
+        }
+        return superados;
+    }
+
+    private void maximo(List<String> superados, String escenario, String metrica, double medido) {
+        Double limite = valor(escenario, metrica);
+        if (limite != null && medido > limite) {
+            superados.add(String.format("%s: %s %.3f > %.3f", escenario, metrica, medido, limite));
+        }
+    }
+
+    private Double valor(String escenario, String metrica) {
+        String texto = valores.getProperty(escenario + "." + metrica, valores.getProperty("*." + metrica));
+        return texto == null ? null : Double.valueOf(texto.trim());
+    }
+}
@@ -0,0 +1,37 @@
+package carga;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Fase verify: falla (código de salida 1) si la prueba de carga superó algún umbral
+ * y carga.verificar es true. Corre aparte de PruebaCarga para que Maven detenga
+ * antes el servidor y la base en post-integration-test.
+ */
+public final class VerificarUmbrales {
+
+    private VerificarUmbrales() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path archivo = Path.of(System.getProperty("carga.superados", "target/carga/umbrales-superados.txt"));
+        if (!Files.exists(archivo)) {
+            System.err.println("No hay resultados de la prueba de carga: " + archivo);
+            System.exit(1);
+        }
+        List<String> superados = Files.readAllLines(archivo, StandardCharsets.UTF_8).stream()
+                .filter(linea -> !linea.isBlank())
+                .toList();
+        if (superados.isEmpty()) {
+            System.out.println("Prueba de carga dentro de los umbrales");
+            return;
+        }
+        superados.forEach(linea -> System.err.println("Umbral superado: " + linea));
+        if (Boolean.parseBoolean(System.getProperty("carga.verificar", "false"))) {
+            System.exit(1);
+        }
+    }
+}
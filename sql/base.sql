@@ -4,7 +4,8 @@ CREATE TABLE usuarios (
     nombre VARCHAR(100) NOT NULL,
     correo VARCHAR(100) UNIQUE NOT NULL,
     contrasena VARCHAR(255) NOT NULL,
-    rol VARCHAR(20) NOT NULL CHECK (rol IN ('administrador', 'veterinario', 'recepcionista'))
+    rol VARCHAR(20) NOT NULL CHECK (rol IN ('administrador', 'veterinario', 'recepcionista')),
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Tabla de propietarios
@@ -14,7 +15,8 @@ CREATE TABLE propietarios (
     dui VARCHAR(10) UNIQUE NOT NULL,
     direccion TEXT,
     telefono VARCHAR(20),
-    correo VARCHAR(100)
+    correo VARCHAR(100),
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Tabla de mascotas
@@ -28,7 +30,8 @@ CREATE TABLE mascotas (
     color VARCHAR(30),
     peso DECIMAL(5,2),
     observaciones TEXT,
-    id_propietario INT NOT NULL REFERENCES propietarios(id_propietario) ON DELETE CASCADE
+    id_propietario INT NOT NULL REFERENCES propietarios(id_propietario) ON DELETE CASCADE,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Tabla de vacunas
@@ -39,7 +42,8 @@ CREATE TABLE vacunas (
     fecha_aplicacion DATE NOT NULL,
     proxima_dosis DATE,
     id_mascota INT NOT NULL REFERENCES mascotas(id_mascota) ON DELETE CASCADE,
-    id_veterinario INT REFERENCES usuarios(id_usuario) ON DELETE SET NULL
+    id_veterinario INT REFERENCES usuarios(id_usuario) ON DELETE SET NULL,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Tabla de citas médicas
@@ -51,7 +55,8 @@ CREATE TABLE citas (
     estado VARCHAR(20) DEFAULT 'pendiente' CHECK (estado IN ('pendiente', 'realizada', 'cancelada')),
     notas TEXT,
     id_mascota INT NOT NULL REFERENCES mascotas(id_mascota) ON DELETE CASCADE,
-    id_veterinario INT REFERENCES usuarios(id_usuario) ON DELETE SET NULL
+    id_veterinario INT REFERENCES usuarios(id_usuario) ON DELETE SET NULL,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Tabla de historial médico
@@ -62,7 +67,20 @@ CREATE TABLE historial_medico (
     diagnostico TEXT,
     tratamiento TEXT,
     observaciones TEXT,
-    id_veterinario INT REFERENCES usuarios(id_usuario) ON DELETE SET NULL
+    id_veterinario INT REFERENCES usuarios(id_usuario) ON DELETE SET NULL,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+-- Recordatorios de próxima dosis (los genera el job recordatoriosVacunas)
+CREATE TABLE recordatorios_vacuna (
+    id_recordatorio SERIAL PRIMARY KEY,
+    id_vacuna INT NOT NULL REFERENCES vacunas(id_vacuna) ON DELETE CASCADE,
+    id_propietario INT NOT NULL REFERENCES propietarios(id_propietario) ON DELETE CASCADE,
+    proxima_dosis DATE NOT NULL,
+    fecha_generacion DATE NOT NULL,
+    estado VARCHAR(20) DEFAULT 'pendiente',
+    version BIGINT NOT NULL DEFAULT 0,
+    UNIQUE (id_vacuna, proxima_dosis)
 );
 
 -- ==============================
@@ -99,3 +117,52 @@ INSERT INTO citas (fecha, hora, motivo, estado, notas, id_mascota, id_veterinari
 INSERT INTO historial_medico (id_mascota, fecha, diagnostico, tratamiento, observaciones, id_veterinario) VALUES
 (1, '2025-06-20', 'Dermatitis leve', 'Champú medicado', 'Mejoró con tratamiento.', 2),
 (2, '2025-05-30', 'Desparasitación interna', 'Dosis única de antiparasitario', 'Sin efectos adversos', 2);
+
+-- ==============================
+-- SECUENCIAS
+-- ==============================
+
+-- Hibernate reserva IDs en bloques de 50 (optimizador pooled, allocationSize = 50)
+ALTER SEQUENCE citas_id_cita_seq INCREMENT BY 50;
+ALTER SEQUENCE mascotas_id_mascota_seq INCREMENT BY 50;
+ALTER SEQUENCE recordatorios_vacuna_id_recordatorio_seq INCREMENT BY 50;
+
+-- ==============================
+-- ÍNDICES
+-- ==============================
+
+-- Paginación por cursor (keyset): orden por columna y desempate por ID
+CREATE INDEX idx_citas_fecha_id ON citas (fecha, id_cita);
+CREATE INDEX idx_mascotas_nombre_id ON mascotas (nombre, id_mascota);
+CREATE INDEX idx_usuarios_nombre_id ON usuarios (nombre, id_usuario);
+
+-- Filtros de listado por clave foránea (PostgreSQL no indexa las FK automáticamente)
+CREATE INDEX idx_mascotas_propietario ON mascotas (id_propietario);
+CREATE INDEX idx_historial_mascota_fecha ON historial_medico (id_mascota, fecha);
+
+-- Job de recordatorios: rango de próxima dosis recorrido por cursor (proxima_dosis, id_vacuna)
+CREATE INDEX idx_vacunas_proxima_dosis_id ON vacunas (proxima_dosis, id_vacuna)
+    WHERE proxima_dosis IS NOT NULL;
+
+-- Agenda: un veterinario no puede tener dos citas activas a la misma fecha y hora.
+-- Respaldo del índice en memoria (AgendaVeterinarios); también sirve para cargar un día.
+CREATE UNIQUE INDEX uq_citas_veterinario_turno ON citas (id_veterinario, fecha, hora)
+    WHERE estado IS DISTINCT FROM 'cancelada';
+
+-- ==============================
+-- BÚSQUEDA DE TEXTO COMPLETO
+-- ==============================
+
+-- Columnas tsvector generadas por PostgreSQL (no se mapean en las entidades) con índice GIN.
+-- El peso ('A' > 'B' > 'C') influye en el orden por ts_rank de /historial/buscar.
+ALTER TABLE historial_medico ADD COLUMN busqueda tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('spanish', coalesce(diagnostico, '')), 'A') ||
+    setweight(to_tsvector('spanish', coalesce(tratamiento, '')), 'B') ||
+    setweight(to_tsvector('spanish', coalesce(observaciones, '')), 'C')
+) STORED;
+CREATE INDEX idx_historial_busqueda ON historial_medico USING GIN (busqueda);
+
+ALTER TABLE mascotas ADD COLUMN busqueda tsvector GENERATED ALWAYS AS (
+    to_tsvector('spanish', coalesce(observaciones, ''))
+) STORED;
+CREATE INDEX idx_mascotas_busqueda ON mascotas USING GIN (busqueda);
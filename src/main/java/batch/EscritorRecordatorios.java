@@ -0,0 +1,37 @@
+package batch;
+
+import control.RecordatorioVacunaDAO;
+import control.VacunaPorVencer;
+import jakarta.batch.api.BatchProperty;
+import jakarta.batch.api.chunk.AbstractItemWriter;
+import jakarta.enterprise.context.Dependent;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Escribe un chunk de recordatorios en la transacción del chunk; los ya existentes se omiten.
+ */
+@Named("escritorRecordatorios")
+@Dependent
+public class EscritorRecordatorios extends AbstractItemWriter {
+
+    private static final Logger LOG = Logger.getLogger(EscritorRecordatorios.class.getName());
+
+    @Inject
+    @BatchProperty(name = "fechaReferencia")
+    String fechaReferencia;
+
+    @Inject
+    private RecordatorioVacunaDAO recordatorioVacunaDAO;
+
+    @Override
+    public void writeItems(List<Object> items) {
+        List<VacunaPorVencer> vacunas = items.stream().map(VacunaPorVencer.class::cast).toList();
+        int creados = recordatorioVacunaDAO.registrar(vacunas, LocalDate.parse(fechaReferencia));
+        LOG.fine(() -> "Recordatorios creados: " + creados + " de " + vacunas.size() + " vacunas");
+    }
+}
@@ -0,0 +1,93 @@
+package batch;
+
+import control.VacunaDAO;
+import control.VacunaPorVencer;
+import jakarta.batch.api.BatchProperty;
+import jakarta.batch.api.chunk.AbstractItemReader;
+import jakarta.enterprise.context.Dependent;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Lee las vacunas con próxima dosis dentro de la ventana del job, por páginas keyset
+ * ordenadas por (proximaDosis, id) y solo las de su partición. El checkpoint es la última
+ * vacuna leída: al reiniciar, la lectura continúa justo después.
+ */
+@Named("lectorVacunasPorVencer")
+@Dependent
+public class LectorVacunasPorVencer extends AbstractItemReader {
+
+    @Inject
+    @BatchProperty(name = "fechaReferencia")
+    String fechaReferencia;
+
+    @Inject
+    @BatchProperty(name = "diasAnticipacion")
+    String diasAnticipacion;
+
+    @Inject
+    @BatchProperty(name = "particion")
+    String particion;
+
+    @Inject
+    @BatchProperty(name = "particiones")
+    String particiones;
+
+    @Inject
+    @BatchProperty(name = "tamanoPagina")
+    String tamanoPagina;
+
+    @Inject
+    private VacunaDAO vacunaDAO;
+
+    private final ArrayDeque<VacunaPorVencer> pagina = new ArrayDeque<>();
+
+    private LocalDate desde;
+
+    private LocalDate hasta;
+
+    private int numeroParticion;
+
+    private int totalParticiones;
+
+    private int limite;
+
+    private VacunaPorVencer ultima;
+
+    private boolean agotado;
+
+    @Override
+    public void open(Serializable checkpoint) {
+        desde = LocalDate.parse(fechaReferencia);
+        hasta = desde.plusDays(Integer.parseInt(diasAnticipacion));
+        numeroParticion = Integer.parseInt(particion);
+        totalParticiones = Integer.parseInt(particiones);
+        limite = Integer.parseInt(tamanoPagina);
+        ultima = (VacunaPorVencer) checkpoint;
+    }
+
+    @Override
+    public Object readItem() {
+        if (pagina.isEmpty() && !agotado) {
+            List<VacunaPorVencer> siguientes = vacunaDAO.findPorVencer(desde, hasta, ultima,
+                    numeroParticion, totalParticiones, limite);
+            agotado = siguientes.size() < limite;
+            pagina.addAll(siguientes);
+        }
+        VacunaPorVencer vacuna = pagina.poll();
+        if (vacuna != null) {
+            ultima = vacuna;
+        }
+        return vacuna; // null termina la partición
+    }
+
+    @Override
+    public Serializable checkpointInfo() {
+        return ultima;
+    }
+}
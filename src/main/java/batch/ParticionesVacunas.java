@@ -0,0 +1,41 @@
+package batch;
+
+import jakarta.batch.api.BatchProperty;
+import jakarta.batch.api.partition.PartitionMapper;
+import jakarta.batch.api.partition.PartitionPlan;
+import jakarta.batch.api.partition.PartitionPlanImpl;
+import jakarta.enterprise.context.Dependent;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+
+import java.util.Properties;
+
+/**
+ * Reparte las vacunas en particiones por id_vacuna módulo N, que se ejecutan en paralelo.
+ * Al reiniciar se conserva el plan, así cada partición continúa desde su propio checkpoint.
+ */
+@Named("particionesVacunas")
+@Dependent
+public class ParticionesVacunas implements PartitionMapper {
+
+    @Inject
+    @BatchProperty(name = "particiones")
+    String particiones;
+
+    @Override
+    public PartitionPlan mapPartitions() {
+        int total = Math.max(1, Integer.parseInt(particiones));
+        Properties[] propiedades = new Properties[total];
+        for (int i = 0; i < total; i++) {
+            propiedades[i] = new Properties();
+            propiedades[i].setProperty("particion", String.valueOf(i));
+            propiedades[i].setProperty("particiones", String.valueOf(total));
+        }
+
+        PartitionPlanImpl plan = new PartitionPlanImpl();
+        plan.setPartitions(total);
+        plan.setThreads(total);
+        plan.setPartitionProperties(propiedades);
+        return plan;
+    }
+}
@@ -0,0 +1,101 @@
+package batch;
+
+import jakarta.batch.operations.JobOperator;
+import jakarta.batch.operations.NoSuchJobException;
+import jakarta.batch.runtime.BatchRuntime;
+import jakarta.batch.runtime.BatchStatus;
+import jakarta.batch.runtime.JobExecution;
+import jakarta.batch.runtime.JobInstance;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Lanza cada día el job recordatoriosVacunas (META-INF/batch-jobs). El job corre en los hilos
+ * del runtime de Jakarta Batch, no en los de las peticiones HTTP.
+ * Si la ejecución del mismo día falló o se detuvo, se reinicia desde sus checkpoints.
+ */
+@Singleton
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class ProgramadorRecordatorios {
+
+    private static final Logger LOG = Logger.getLogger(ProgramadorRecordatorios.class.getName());
+
+    public static final String JOB = "recordatoriosVacunas";
+
+    @Inject
+    @ConfigProperty(name = "mascotas.recordatorios.dias-anticipacion", defaultValue = "7")
+    int diasAnticipacion;
+
+    @Inject
+    @ConfigProperty(name = "mascotas.recordatorios.particiones", defaultValue = "4")
+    int particiones;
+
+    @Inject
+    @ConfigProperty(name = "mascotas.recordatorios.tamano-chunk", defaultValue = "100")
+    int tamanoChunk;
+
+    @Schedule(hour = "2", minute = "0", persistent = false)
+    public void programar() {
+        ejecutar(LocalDate.now());
+    }
+
+    /**
+     * Inicia el job para la fecha indicada, o reinicia la última ejecución si era de esa
+     * misma fecha y no terminó. Una ejecución fallida de otro día se abandona: la ventana
+     * nueva ya cubre las dosis que siguen pendientes.
+     * @return ID de la ejecución iniciada, reiniciada o aún en curso.
+     */
+    public long ejecutar(LocalDate fecha) {
+        JobOperator operador = BatchRuntime.getJobOperator();
+        JobExecution ultima = ultimaEjecucion(operador);
+        if (ultima != null) {
+            BatchStatus estado = ultima.getBatchStatus();
+            if (estado == BatchStatus.STARTING || estado == BatchStatus.STARTED || estado == BatchStatus.STOPPING) {
+                LOG.warning("El job " + JOB + " sigue en curso (ejecución " + ultima.getExecutionId() + ")");
+                return ultima.getExecutionId();
+            }
+            if (estado == BatchStatus.FAILED || estado == BatchStatus.STOPPED) {
+                Properties anteriores = ultima.getJobParameters();
+                if (fecha.toString().equals(anteriores.getProperty("fechaReferencia"))) {
+                    long reinicio = operador.restart(ultima.getExecutionId(), anteriores);
+                    LOG.info("Reiniciando " + JOB + " para " + fecha + " (ejecución " + reinicio + ")");
+                    return reinicio;
+                }
+                operador.abandon(ultima.getExecutionId());
+            }
+        }
+
+        Properties parametros = new Properties();
+        parametros.setProperty("fechaReferencia", fecha.toString());
+        parametros.setProperty("diasAnticipacion", String.valueOf(diasAnticipacion));
+        parametros.setProperty("particiones", String.valueOf(particiones));
+        parametros.setProperty("tamanoChunk", String.valueOf(tamanoChunk));
+        long ejecucion = operador.start(JOB, parametros);
+        LOG.info("Iniciado " + JOB + " para " + fecha + " (ejecución " + ejecucion + ")");
+        return ejecucion;
+    }
+
+    private static JobExecution ultimaEjecucion(JobOperator operador) {
+        try {
+            List<JobInstance> instancias = operador.getJobInstances(JOB, 0, 1); // la más reciente primero
+            if (instancias.isEmpty()) {
+                return null;
+            }
+            return operador.getJobExecutions(instancias.get(0)).stream()
+                    .max(Comparator.comparingLong(JobExecution::getExecutionId))
+                    .orElse(null);
+        } catch (NoSuchJobException e) {
+            return null; // el job nunca se ha ejecutado
+        }
+    }
+}
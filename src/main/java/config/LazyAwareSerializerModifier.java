@@ -0,0 +1,51 @@
+package config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import org.hibernate.Hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evita que Jackson dispare cargas perezosas de Hibernate al serializar.
+ * Las asociaciones que no se cargaron con el grafo de la consulta se omiten del JSON
+ * (en lugar de provocar N+1 consultas o LazyInitializationException), y se ocultan
+ * las propiedades internas de los proxies.
+ */
+public class LazyAwareSerializerModifier extends BeanSerializerModifier {
+
+    private static final Set<String> PROPIEDADES_PROXY = Set.of("hibernateLazyInitializer", "handler");
+
+    @Override
+    public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                     List<BeanPropertyWriter> beanProperties) {
+        List<BeanPropertyWriter> propiedades = new ArrayList<>(beanProperties.size());
+        for (BeanPropertyWriter propiedad : beanProperties) {
+            if (!PROPIEDADES_PROXY.contains(propiedad.getName())) {
+                propiedades.add(new LazyPropertyWriter(propiedad));
+            }
+        }
+        return propiedades;
+    }
+
+    private static class LazyPropertyWriter extends BeanPropertyWriter {
+
+        LazyPropertyWriter(BeanPropertyWriter base) {
+            super(base);
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            Object valor = get(bean); // no inicializa: solo obtiene la colección o el proxy
+            if (Hibernate.isInitialized(valor)) {
+                super.serializeAsField(bean, gen, prov);
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.ws.rs.ext.ContextResolver;
 import jakarta.ws.rs.ext.Provider;
@@ -15,6 +16,7 @@ public class ObjectMapperProvider implements ContextResolver<ObjectMapper> {
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule()); // Para LocalDate y LocalTime
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.registerModule(new SimpleModule().setSerializerModifier(new LazyAwareSerializerModifier())); // asociaciones LAZY no cargadas
     }
 
     @Override
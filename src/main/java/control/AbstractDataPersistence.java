@@ -1,29 +1,129 @@
 package control;
 
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import jakarta.annotation.Resource;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Parameter;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.Query;
+import jakarta.persistence.Table;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.ParameterExpression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import monitoreo.Medido;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Clase abstracta genérica para operaciones CRUD usando JPA.
+ * Cada operación pública se mide con un timer por DAO y método (ver monitoreo.MetricasInterceptor).
  * @param <T> Tipo de entidad manejada.
  */
+@Medido
 public abstract class AbstractDataPersistence<T> {
 
     public abstract EntityManager getEntityManager();
 
+    /**
+     * Por debajo de este número de filas estimadas se prefiere el conteo exacto.
+     */
+    private static final long UMBRAL_ESTIMACION = 10_000;
+
+    /**
+     * Debe coincidir con hibernate.jdbc.batch_size en persistence.xml.
+     */
+    private static final int TAMANO_LOTE = 50;
+
+    private static final String HINT_FETCH_SIZE = "org.hibernate.fetchSize";
+
+    private static final String HINT_READ_ONLY = "org.hibernate.readOnly";
+
+    private static final String HINT_FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+
+    // Diccionario de PostgreSQL usado en las columnas tsvector y en las consultas de búsqueda
+    private static final String CONFIGURACION_TEXTO = "spanish";
+
+    private static final String CAMPO_RANGO = "rango";
+
+    // IDs por consulta en findByIds; con in_clause_parameter_padding se rellena a 512 parámetros
+    private static final int MAX_IDS_POR_CONSULTA = 500;
+
+    private static final int MAX_CONSULTAS_COMPILADAS = 1_000;
+
+    // Consultas de filtro ya construidas, por EntityManagerFactory y luego por entidad y forma del
+    // filtro (sin valores). Se comparten entre hilos porque no se modifican después de construirlas
+    // y Hibernate ejecuta una copia (hibernate.criteria.copy_tree en persistence.xml).
+    private static final Map<EntityManagerFactory, Map<String, ConsultaCompilada<?>>> CONSULTAS_COMPILADAS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * CriteriaQuery reutilizable con sus parámetros, y el tipo al que se convierte el valor de cada uno.
+     */
+    private record ConsultaCompilada<R>(CriteriaQuery<R> consulta, List<ParameterExpression<?>> parametros,
+                                        List<Class<?>> tipos) {
+    }
+
     private final Class<T> tipoDato;
 
+    // null fuera del contenedor (benchmarks): los cambios se registran solo en el momento
+    @Resource
+    private TransactionSynchronizationRegistry transacciones;
+
     public AbstractDataPersistence(Class<T> tipoDato) {
         this.tipoDato = tipoDato;
     }
 
+    public Class<T> getTipoDato() {
+        return tipoDato;
+    }
+
     /**
-     * Verifica y retorna un EntityManager válido.
+     * Verifica y retorna un EntityManager válido. Dentro de ModoLectura prepara antes la
+     * transacción para solo lectura.
      * @return EntityManager
      * @throws IllegalStateException si es nulo.
      */
@@ -32,9 +132,35 @@ public abstract class AbstractDataPersistence<T> {
         if (em == null) {
             throw new IllegalStateException("Error al acceder al repositorio: EntityManager es nulo.");
         }
+        if (ModoLectura.activo()) {
+            prepararLectura(em);
+        }
         return em;
     }
 
+    /**
+     * Sesión sin snapshots (las entidades cargadas no se comparan al terminar), sin flush y
+     * transacción READ ONLY en PostgreSQL, una vez por transacción: la sesión ya marcada
+     * como de solo lectura indica que se preparó. Si la conexión vino de la réplica, lo leído
+     * no se guarda en la caché de segundo nivel, que solo se invalida al escribir.
+     */
+    private static void prepararLectura(EntityManager em) {
+        Session session = em.unwrap(Session.class);
+        if (session.isDefaultReadOnly()) {
+            return;
+        }
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        session.doWork(conexion -> {
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.execute("SET TRANSACTION READ ONLY");
+            }
+        });
+        if (ModoLectura.leyoDeReplica()) {
+            session.setCacheMode(CacheMode.GET);
+        }
+    }
+
     /**
      * Crea una nueva entidad en la base de datos.
      */
@@ -47,27 +173,82 @@ public abstract class AbstractDataPersistence<T> {
             EntityManager em = requireEntityManager();
             em.persist(entity);
             em.flush(); // 👈 fuerza sincronización inmediata con la base
+            registrarCambio();
         } catch (Exception ex) {
             throw new IllegalStateException("Error al persistir la entidad.", ex);
         }
     }
 
 
+    /**
+     * Persiste varias entidades en la transacción actual.
+     * Los INSERT se envían en lotes JDBC (hibernate.jdbc.batch_size) y el contexto
+     * de persistencia se vacía cada TAMANO_LOTE entidades para no acumularlas en memoria.
+     * Nota: em.clear() también desvincula cualquier otra entidad cargada en la transacción.
+     */
+    public void createAll(final List<T> entities) {
+        if (entities == null || entities.contains(null)) {
+            throw new IllegalArgumentException("Parámetro no válido: lista nula o con entidades nulas.");
+        }
+
+        try {
+            EntityManager em = requireEntityManager();
+            int pendientes = 0;
+            for (T entity : entities) {
+                em.persist(entity);
+                if (++pendientes == TAMANO_LOTE) {
+                    em.flush();
+                    em.clear();
+                    pendientes = 0;
+                }
+            }
+            em.flush();
+            em.clear();
+            registrarModificacion(null, null);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al persistir el lote de entidades.", ex);
+        }
+    }
+
     /**
      * Busca una entidad por su ID.
      */
     public T findById(final Object id) {
+        return findById(id, null);
+    }
+
+    /**
+     * Busca una entidad por su ID cargando las asociaciones del grafo indicado.
+     * @param grafo nombre de un @NamedEntityGraph de la entidad, o null para no unir asociaciones.
+     */
+    public T findById(final Object id, String grafo) {
         if (id == null) {
             throw new IllegalArgumentException("Parámetro no válido: ID es null.");
         }
 
         try {
-            return requireEntityManager().find(tipoDato, id);
+            EntityManager em = requireEntityManager();
+            if (grafo == null) {
+                return em.find(tipoDato, id);
+            }
+            T entity = em.find(tipoDato, id, Map.of(HINT_FETCH_GRAPH, em.getEntityGraph(grafo)));
+            if (entity != null) {
+                completarGrafo(entity, grafo);
+            }
+            return entity;
         } catch (Exception ex) {
             throw new IllegalStateException("Error al buscar la entidad por ID.", ex);
         }
     }
 
+    /**
+     * Punto de extensión para cargar, dentro de la transacción, lo que un grafo de detalle
+     * no puede unir en la misma consulta (por ejemplo, una segunda colección).
+     * Solo se invoca desde findById.
+     */
+    protected void completarGrafo(T entity, String grafo) {
+    }
+
     /**
      * Elimina una entidad de la base de datos.
      */
@@ -80,6 +261,9 @@ public abstract class AbstractDataPersistence<T> {
             EntityManager em = requireEntityManager();
             T managedEntity = em.merge(entity); // Asegura que esté en estado gestionado
             em.remove(managedEntity);
+            Object id = leerAtributo(managedEntity, atributoId(em));
+            registrarModificacion(id, null);
+            despuesDeBorrar(id);
         } catch (Exception ex) {
             throw new IllegalStateException("Error al eliminar la entidad.", ex);
         }
@@ -94,8 +278,10 @@ public abstract class AbstractDataPersistence<T> {
         }
 
         try {
-            T merged = requireEntityManager().merge(entity);
-            requireEntityManager().flush(); // 👈 opcional
+            EntityManager em = requireEntityManager();
+            T merged = em.merge(entity);
+            em.flush(); // 👈 opcional
+            registrarModificacion(leerAtributo(merged, atributoId(em)), null);
             return merged;
         } catch (Exception ex) {
             throw new IllegalStateException("Error al actualizar la entidad.", ex);
@@ -103,10 +289,223 @@ public abstract class AbstractDataPersistence<T> {
     }
 
 
+    /**
+     * Actualiza la entidad con un único UPDATE ... WHERE id = ? [AND version = ?],
+     * sin leerla antes ni hacer merge. Incrementa la versión en la misma sentencia.
+     * Las entidades @Cacheable se cargan y se actualizan con flush (ver actualizarColumnas).
+     * Se escriben todos los atributos simples y las asociaciones a uno, excepto las
+     * @JsonBackReference: el cliente nunca las envía, así que se conserva el valor guardado.
+     * @param versionEsperada versión para el bloqueo optimista, o null para no comprobarla.
+     * @return filas afectadas: 0 si no existe la entidad o la versión no coincide.
+     */
+    public int updateById(final Object id, final T entity, final Long versionEsperada) {
+        if (id == null || entity == null) {
+            throw new IllegalArgumentException("Parámetros no válidos: ID o entidad es null.");
+        }
+
+        List<SingularAttribute<? super T, ?>> atributos = new ArrayList<>();
+        for (SingularAttribute<? super T, ?> atributo : requireEntityManager().getMetamodel().entity(tipoDato).getSingularAttributes()) {
+            if (!atributo.isId() && !atributo.isVersion() && !esReferenciaInversa(atributo)) {
+                atributos.add(atributo);
+            }
+        }
+        return actualizarColumnas(id, entity, atributos, null, versionEsperada);
+    }
+
+    /**
+     * Actualización parcial (JSON Merge Patch): un único UPDATE que escribe solo las
+     * columnas de los atributos indicados e incrementa la versión.
+     * @param valores entidad de la que se leen los valores nuevos; el resto de sus campos se ignora.
+     * @param nombres atributos a escribir; deben ser simples o asociaciones a uno, y no el ID,
+     *                la versión ni una @JsonBackReference.
+     * @param versionEsperada versión para el bloqueo optimista, o null para no comprobarla.
+     * @return filas afectadas: 0 si no existe la entidad o la versión no coincide.
+     * @throws ConsultaInvalidaException si algún atributo no existe o no se puede modificar.
+     */
+    public int updateParcial(final Object id, final T valores, final Set<String> nombres, final Long versionEsperada) {
+        if (id == null || valores == null || nombres == null || nombres.isEmpty()) {
+            throw new IllegalArgumentException("Parámetros no válidos: ID, valores o atributos vacíos.");
+        }
+
+        EntityType<T> entidad = requireEntityManager().getMetamodel().entity(tipoDato);
+        List<SingularAttribute<? super T, ?>> atributos = new ArrayList<>(nombres.size());
+        for (String nombre : nombres) {
+            Attribute<? super T, ?> atributo;
+            try {
+                atributo = entidad.getAttribute(nombre);
+            } catch (IllegalArgumentException e) {
+                throw new ConsultaInvalidaException("Atributo desconocido: " + nombre);
+            }
+            if (!(atributo instanceof SingularAttribute<? super T, ?> simple)
+                    || simple.isId() || simple.isVersion() || esReferenciaInversa(simple)) {
+                throw new ConsultaInvalidaException("El atributo no se puede modificar: " + nombre);
+            }
+            atributos.add(simple);
+        }
+        return actualizarColumnas(id, valores, atributos, nombres, versionEsperada);
+    }
+
+    /**
+     * Escribe los atributos con un UPDATE por Criteria, salvo en las entidades @Cacheable:
+     * Hibernate responde a un UPDATE masivo descartando la región completa de la caché de
+     * segundo nivel, así que en ellas se usa actualizarCargada().
+     */
+    private int actualizarColumnas(Object id, T valores, List<SingularAttribute<? super T, ?>> atributos,
+                                   Set<String> nombres, Long versionEsperada) {
+        try {
+            EntityManager em = requireEntityManager();
+            if (tipoDato.isAnnotationPresent(Cacheable.class)) {
+                return actualizarCargada(em, id, valores, atributos, nombres, versionEsperada);
+            }
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaUpdate<T> cu = cb.createCriteriaUpdate(tipoDato);
+            Root<T> root = cu.from(tipoDato);
+
+            for (SingularAttribute<? super T, ?> atributo : atributos) {
+                asignar(cb, cu, root.get(atributo.getName()), atributo.getJavaType(), leerAtributo(valores, atributo));
+            }
+
+            Path<Long> version = root.get(atributoVersion(em).getName());
+            cu.set(version, cb.sum(version, 1L));
+
+            Predicate porId = cb.equal(root.get(atributoId(em).getName()), id);
+            cu.where(versionEsperada == null ? porId : cb.and(porId, cb.equal(version, versionEsperada)));
+
+            int filas = em.createQuery(cu).executeUpdate();
+            if (filas > 0) {
+                registrarModificacion(id, nombres);
+            }
+            return filas;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al actualizar la entidad.", ex);
+        }
+    }
+
+    /**
+     * Carga la entidad (normalmente desde la caché de segundo nivel), copia los atributos y hace
+     * flush: el UPDATE comprueba la versión y solo se reemplaza la entrada de esta entidad en la
+     * caché. El flush también aplica Bean Validation.
+     */
+    private int actualizarCargada(EntityManager em, Object id, T valores, List<SingularAttribute<? super T, ?>> atributos,
+                                  Set<String> nombres, Long versionEsperada) {
+        T encontrada = em.find(tipoDato, id);
+        if (encontrada == null) {
+            return 0;
+        }
+        T actual = Hibernate.unproxy(encontrada, tipoDato);
+        if (versionEsperada != null && !versionEsperada.equals(leerAtributo(actual, atributoVersion(em)))) {
+            return 0;
+        }
+        PersistenceUnitUtil unidad = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (SingularAttribute<? super T, ?> atributo : atributos) {
+            Object valor = leerAtributo(valores, atributo);
+            if (valor != null && atributo.isAssociation()) {
+                // La asociación llega como {"id": ...}: se referencia la fila sin cargarla
+                valor = em.getReference(atributo.getJavaType(), unidad.getIdentifier(valor));
+            }
+            escribirAtributo(actual, atributo, valor);
+        }
+        em.flush();
+        registrarModificacion(id, nombres);
+        return 1;
+    }
+
+    /**
+     * Elimina la entidad con un único DELETE ... WHERE id = ?, sin cargarla.
+     * Las filas dependientes las borra la base (ON DELETE CASCADE / SET NULL en sql/base.sql),
+     * no el cascade de JPA.
+     * @return filas afectadas: 0 si no existe la entidad.
+     */
+    public int deleteById(final Object id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Parámetro no válido: ID es null.");
+        }
+
+        try {
+            EntityManager em = requireEntityManager();
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaDelete<T> cd = cb.createCriteriaDelete(tipoDato);
+            Root<T> root = cd.from(tipoDato);
+            cd.where(cb.equal(root.get(atributoId(em).getName()), id));
+
+            int filas = em.createQuery(cd).executeUpdate();
+            if (filas > 0) {
+                registrarModificacion(id, null);
+                despuesDeBorrar(id);
+            }
+            return filas;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al eliminar la entidad.", ex);
+        }
+    }
+
+    /**
+     * Busca varias entidades por ID con una consulta IN por cada MAX_IDS_POR_CONSULTA IDs.
+     * Los IDs pueden venir como texto: se convierten al tipo del ID y se ignoran los repetidos.
+     * @param grafo grafo de listado (sin colecciones), o null.
+     * @return mapa de ID a entidad en el orden de ids, con null para los IDs que no existen.
+     * @throws ConsultaInvalidaException si un ID no es válido para el tipo del ID.
+     */
+    public Map<Object, T> findByIds(Collection<?> ids, String grafo) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Parámetro no válido: ids es null.");
+        }
+
+        EntityManager em = requireEntityManager();
+        SingularAttribute<? super T, ?> atributoId = atributoId(em);
+        Map<Object, T> resultado = new LinkedHashMap<>();
+        for (Object id : ids) {
+            resultado.put(convertir(String.valueOf(id), atributoId.getJavaType()), null);
+        }
+
+        try {
+            List<Object> pendientes = new ArrayList<>(resultado.keySet());
+            for (int inicio = 0; inicio < pendientes.size(); inicio += MAX_IDS_POR_CONSULTA) {
+                List<Object> lote = pendientes.subList(inicio, Math.min(inicio + MAX_IDS_POR_CONSULTA, pendientes.size()));
+                buscarPorIds(em, atributoId, lote, grafo).forEach(resultado::put);
+            }
+            return resultado;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al buscar las entidades por ID.", ex);
+        }
+    }
+
+    /**
+     * Versión actual (@Version) de la entidad, sin cargarla completa.
+     * @return la versión, o null si no existe una entidad con ese ID.
+     */
+    public Long findVersion(final Object id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Parámetro no válido: ID es null.");
+        }
+
+        try {
+            EntityManager em = requireEntityManager();
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Object> cq = cb.createQuery(Object.class);
+            Root<T> root = cq.from(tipoDato);
+            cq.select(root.get(atributoVersion(em).getName()))
+                    .where(cb.equal(root.get(atributoId(em).getName()), id));
+
+            List<Object> resultado = em.createQuery(cq).getResultList();
+            return resultado.isEmpty() ? null : ((Number) resultado.get(0)).longValue();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al obtener la versión de la entidad.", ex);
+        }
+    }
+
     /**
      * Retorna una lista de entidades en un rango (paginación).
      */
     public List<T> findRange(int first, int pageSize) {
+        return findRange(first, pageSize, null);
+    }
+
+    /**
+     * Igual que findRange(int, int) aplicando un grafo de listado.
+     * El grafo no debe incluir colecciones: Hibernate paginaría en memoria.
+     */
+    public List<T> findRange(int first, int pageSize, String grafo) {
         if (first < 0 || pageSize <= 0) {
             throw new IllegalArgumentException("Parámetros no válidos: first < 0 o pageSize <= 0.");
         }
@@ -121,15 +520,547 @@ public abstract class AbstractDataPersistence<T> {
             TypedQuery<T> query = em.createQuery(cq);
             query.setFirstResult(first);
             query.setMaxResults(pageSize);
+            aplicarGrafo(em, query, grafo);
 
             return query.getResultList();
         } catch (Exception ex) {
-            ex.printStackTrace();  // solo durante desarrollo
             throw new IllegalStateException("Error al obtener el rango de entidades: " + ex.getMessage(), ex);
         }
 
     }
 
+    /**
+     * Retorna una página de entidades ordenada por ID usando paginación por cursor (keyset).
+     * @param cursor token devuelto por la página anterior, o null para la primera página.
+     */
+    public Pagina<T> findRangeKeyset(String cursor, int pageSize) {
+        return findRangeKeyset(null, cursor, pageSize, null);
+    }
+
+    /**
+     * Retorna una página de entidades usando paginación por cursor (keyset).
+     * En lugar de OFFSET filtra por "después del último elemento visto", de modo que
+     * una página profunda cuesta lo mismo que la primera si existe un índice sobre
+     * (columna, id).
+     * @param ordenarPor atributo de orden (null para ordenar por ID); debe estar en getColumnasOrdenables().
+     * @param cursor token devuelto por la página anterior, o null para la primera página.
+     * @param grafo grafo de listado (sin colecciones), o null.
+     */
+    public Pagina<T> findRangeKeyset(String ordenarPor, String cursor, int pageSize, String grafo) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Parámetro no válido: pageSize <= 0.");
+        }
+
+        EntityManager em = requireEntityManager();
+        SingularAttribute<? super T, ?> atributoId = atributoId(em);
+        SingularAttribute<? super T, ?> atributoOrden = atributoOrden(em, ordenarPor, atributoId);
+        Object ultimoId = null;
+        Object ultimoValor = null;
+        if (cursor != null) {
+            String[] partes = decodificarCursor(cursor, atributoOrden != null ? atributoOrden.getName() : null);
+            ultimoId = convertir(partes[1], atributoId.getJavaType());
+            ultimoValor = atributoOrden != null ? convertir(partes[2], atributoOrden.getJavaType()) : null;
+        }
+
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<T> cq = cb.createQuery(tipoDato);
+            Root<T> root = cq.from(tipoDato);
+            Path<Object> idPath = root.get(atributoId.getName());
+            cq.select(root);
+
+            if (atributoOrden == null) {
+                if (ultimoId != null) {
+                    cq.where(mayorQue(cb, idPath, ultimoId));
+                }
+                cq.orderBy(cb.asc(idPath));
+            } else {
+                Path<Object> ordenPath = root.get(atributoOrden.getName());
+                if (ultimoId != null) {
+                    cq.where(cb.or(
+                            mayorQue(cb, ordenPath, ultimoValor),
+                            cb.and(cb.equal(ordenPath, ultimoValor), mayorQue(cb, idPath, ultimoId))));
+                }
+                cq.orderBy(cb.asc(ordenPath), cb.asc(idPath));
+            }
+
+            TypedQuery<T> query = em.createQuery(cq);
+            query.setMaxResults(pageSize + 1); // un elemento extra indica si hay página siguiente
+            aplicarGrafo(em, query, grafo);
+
+            List<T> resultado = query.getResultList();
+            if (resultado.size() <= pageSize) {
+                return new Pagina<>(resultado, null);
+            }
+
+            List<T> pagina = new ArrayList<>(resultado.subList(0, pageSize));
+            T ultimo = pagina.get(pageSize - 1);
+            return new Pagina<>(pagina, codificarCursor(ultimo, atributoId, atributoOrden));
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al obtener la página de entidades.", ex);
+        }
+    }
+
+    /**
+     * Búsqueda de texto completo sobre la columna tsvector de la entidad (ver columnaBusqueda()),
+     * resuelta con su índice GIN. Los resultados se ordenan por relevancia (ts_rank) y luego por ID,
+     * y se paginan con un cursor (rango, id): las páginas siguientes no usan OFFSET.
+     * @param texto  términos de búsqueda en sintaxis de websearch_to_tsquery ("frase", -excluir, or).
+     * @param cursor token devuelto por la página anterior, o null para la primera página.
+     * @param grafo  grafo de listado con el que se cargan las entidades encontradas, o null.
+     * @throws ConsultaInvalidaException si la entidad no admite búsqueda, el texto está vacío o el cursor no es válido.
+     */
+    public Pagina<T> buscarTexto(String texto, String cursor, int pageSize, String grafo) {
+        String columna = columnaBusqueda();
+        if (columna == null) {
+            throw new ConsultaInvalidaException("La entidad no admite búsqueda de texto.");
+        }
+        if (texto == null || texto.isBlank()) {
+            throw new ConsultaInvalidaException("El texto de búsqueda no puede estar vacío.");
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Parámetro no válido: pageSize <= 0.");
+        }
+
+        EntityManager em = requireEntityManager();
+        SingularAttribute<? super T, ?> atributoId = atributoId(em);
+        Object ultimoId = null;
+        Float ultimoRango = null;
+        if (cursor != null) {
+            String[] partes = decodificarCursor(cursor, CAMPO_RANGO);
+            ultimoId = convertir(partes[1], atributoId.getJavaType());
+            ultimoRango = (Float) convertir(partes[2], Float.class);
+        }
+
+        try {
+            String id = "t." + nombreColumna(atributoId);
+            String rango = "ts_rank(t." + columna + ", q)";
+            StringBuilder sql = new StringBuilder("SELECT ").append(id).append(", ").append(rango)
+                    .append(" FROM ").append(nombreTabla()).append(" t, websearch_to_tsquery('")
+                    .append(CONFIGURACION_TEXTO).append("', ?1) q WHERE t.").append(columna).append(" @@ q");
+            if (ultimoId != null) {
+                sql.append(" AND (").append(rango).append(" < ?2 OR (").append(rango).append(" = ?2 AND ")
+                        .append(id).append(" > ?3))");
+            }
+            sql.append(" ORDER BY 2 DESC, 1 ASC");
+
+            Query query = em.createNativeQuery(sql.toString()).setParameter(1, texto);
+            if (ultimoId != null) {
+                query.setParameter(2, ultimoRango).setParameter(3, ultimoId);
+            }
+            query.setMaxResults(pageSize + 1); // un elemento extra indica si hay página siguiente
+
+            @SuppressWarnings("unchecked")
+            List<Object[]> filas = query.getResultList();
+            boolean haySiguiente = filas.size() > pageSize;
+            if (haySiguiente) {
+                filas = filas.subList(0, pageSize);
+            }
+            if (filas.isEmpty()) {
+                return new Pagina<>(List.of(), null);
+            }
+
+            List<Object> ids = new ArrayList<>(filas.size());
+            for (Object[] fila : filas) {
+                ids.add(convertir(String.valueOf(fila[0]), atributoId.getJavaType()));
+            }
+            List<T> pagina = buscarEnOrden(em, atributoId, ids, grafo);
+
+            String siguiente = null;
+            if (haySiguiente) {
+                Object[] ultima = filas.get(filas.size() - 1);
+                siguiente = codificarCursor(CAMPO_RANGO, ids.get(ids.size() - 1), ((Number) ultima[1]).floatValue());
+            }
+            return new Pagina<>(pagina, siguiente);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al buscar texto en las entidades.", ex);
+        }
+    }
+
+    /**
+     * Columna tsvector generada (sql/base.sql) con índice GIN para buscarTexto(), o null si la entidad no la tiene.
+     * No se mapea en la entidad: la mantiene PostgreSQL.
+     */
+    protected String columnaBusqueda() {
+        return null;
+    }
+
+    /**
+     * Carga las entidades con esos IDs en una sola consulta y las devuelve en el mismo orden.
+     */
+    private List<T> buscarEnOrden(EntityManager em, SingularAttribute<? super T, ?> atributoId, List<Object> ids, String grafo) {
+        Map<Object, T> porId = buscarPorIds(em, atributoId, ids, grafo);
+        List<T> ordenadas = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            T entity = porId.get(id);
+            if (entity != null) { // pudo borrarse entre las dos consultas
+                ordenadas.add(entity);
+            }
+        }
+        return ordenadas;
+    }
+
+    /**
+     * Entidades con esos IDs en una consulta IN, indexadas por ID (sin orden).
+     */
+    private Map<Object, T> buscarPorIds(EntityManager em, SingularAttribute<? super T, ?> atributoId,
+                                        Collection<Object> ids, String grafo) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> cq = cb.createQuery(tipoDato);
+        Root<T> root = cq.from(tipoDato);
+        cq.select(root).where(root.get(atributoId.getName()).in(ids));
+        TypedQuery<T> query = em.createQuery(cq);
+        aplicarGrafo(em, query, grafo);
+
+        Map<Object, T> porId = new HashMap<>();
+        for (T entity : query.getResultList()) {
+            porId.put(leerAtributo(entity, atributoId), entity);
+        }
+        return porId;
+    }
+
+    /**
+     * Nombre de la columna de un atributo según su anotación @Column.
+     */
+    private static String nombreColumna(Attribute<?, ?> atributo) {
+        if (atributo.getJavaMember() instanceof Field campo) {
+            Column columna = campo.getAnnotation(Column.class);
+            if (columna != null && !columna.name().isEmpty()) {
+                return columna.name();
+            }
+        }
+        return atributo.getName();
+    }
+
+    /**
+     * Atributos (además del ID) por los que se permite paginar con cursor.
+     * Deben ser NOT NULL y tener un índice compuesto (columna, id).
+     */
+    protected Set<String> getColumnasOrdenables() {
+        return Set.of();
+    }
+
+    /**
+     * Entidades que cumplen el filtro, en el orden pedido y luego por ID, con paginación por OFFSET.
+     * La consulta se compila una sola vez por forma de filtro (campos, operadores y orden) y se
+     * reutiliza con otros valores; así Hibernate reaprovecha su plan y el driver la sentencia preparada.
+     * @param pageSize tamaño de página, o 0 para traer todas.
+     * @throws ConsultaInvalidaException si un campo no está permitido o un valor no es válido.
+     */
+    public List<T> findFiltrado(Filtro filtro, int first, int pageSize, String grafo) {
+        if (filtro == null || first < 0 || pageSize < 0) {
+            throw new IllegalArgumentException("Parámetros no válidos para filtrar.");
+        }
+
+        EntityManager em = requireEntityManager();
+        ConsultaCompilada<T> compilada = compilar(em, filtro, false, null);
+        List<Object> valores = valores(compilada, filtro);
+        try {
+            TypedQuery<T> query = em.createQuery(compilada.consulta());
+            vincular(query, compilada, valores);
+            if (first > 0) {
+                query.setFirstResult(first);
+            }
+            if (pageSize > 0) {
+                query.setMaxResults(pageSize);
+            }
+            aplicarGrafo(em, query, grafo);
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al filtrar las entidades.", ex);
+        }
+    }
+
+    /**
+     * Total exacto de entidades que cumplen el filtro (el orden se ignora).
+     */
+    public long contarFiltrado(Filtro filtro) {
+        if (filtro == null) {
+            throw new IllegalArgumentException("Parámetro no válido: filtro es null.");
+        }
+
+        EntityManager em = requireEntityManager();
+        ConsultaCompilada<Long> compilada = compilar(em, filtro, true, null);
+        List<Object> valores = valores(compilada, filtro);
+        try {
+            TypedQuery<Long> query = em.createQuery(compilada.consulta());
+            vincular(query, compilada, valores);
+            return query.getSingleResult();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al contar las entidades filtradas.", ex);
+        }
+    }
+
+    /**
+     * Solo las columnas pedidas de las entidades que cumplen el filtro (null para todas), en el
+     * mismo orden que findFiltrado. Se consulta una tupla, así que no se hidrata ninguna entidad
+     * ni se cargan colecciones o columnas grandes que no se pidieron.
+     * Cada fila es un mapa campo → valor que empieza por el ID; una asociación a uno se devuelve
+     * como {"id": ...} a partir de la clave foránea, sin unir su tabla.
+     * @param campos   atributos simples o asociaciones a uno de la entidad.
+     * @param pageSize tamaño de página, o 0 para traer todas.
+     * @throws ConsultaInvalidaException si un campo no existe o es una colección.
+     */
+    public List<Map<String, Object>> findProyeccion(List<String> campos, Filtro filtro, int first, int pageSize) {
+        if (campos == null || campos.isEmpty() || first < 0 || pageSize < 0) {
+            throw new IllegalArgumentException("Parámetros no válidos para proyectar.");
+        }
+
+        EntityManager em = requireEntityManager();
+        Filtro efectivo = filtro != null ? filtro : Filtro.NINGUNO;
+        Set<String> asociaciones = new HashSet<>();
+        List<String> seleccion = camposProyectables(em, campos, asociaciones);
+        ConsultaCompilada<Tuple> compilada = compilar(em, efectivo, false, seleccion);
+        List<Object> valores = valores(compilada, efectivo);
+        try {
+            TypedQuery<Tuple> query = em.createQuery(compilada.consulta());
+            vincular(query, compilada, valores);
+            if (first > 0) {
+                query.setFirstResult(first);
+            }
+            if (pageSize > 0) {
+                query.setMaxResults(pageSize);
+            }
+            List<Tuple> tuplas = query.getResultList();
+            List<Map<String, Object>> filas = new ArrayList<>(tuplas.size());
+            for (Tuple tupla : tuplas) {
+                filas.add(aMapa(tupla, seleccion, asociaciones));
+            }
+            return filas;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al proyectar las entidades.", ex);
+        }
+    }
+
+    /**
+     * Solo las columnas pedidas de una entidad (ver findProyeccion).
+     * @return el mapa campo → valor, o null si no existe.
+     */
+    public Map<String, Object> findProyeccionById(Object id, List<String> campos) {
+        if (id == null || campos == null || campos.isEmpty()) {
+            throw new IllegalArgumentException("Parámetros no válidos para proyectar.");
+        }
+
+        EntityManager em = requireEntityManager();
+        Set<String> asociaciones = new HashSet<>();
+        List<String> seleccion = camposProyectables(em, campos, asociaciones);
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+            Root<T> root = cq.from(tipoDato);
+            cq.multiselect(selecciones(em, root, seleccion))
+                    .where(cb.equal(root.get(atributoId(em).getName()), id));
+            List<Tuple> tuplas = em.createQuery(cq).getResultList();
+            return tuplas.isEmpty() ? null : aMapa(tuplas.get(0), seleccion, asociaciones);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al proyectar la entidad.", ex);
+        }
+    }
+
+    /**
+     * Valida los campos pedidos y los devuelve sin repetir, con el ID primero.
+     * Anota en asociaciones los que son asociaciones a uno.
+     */
+    private List<String> camposProyectables(EntityManager em, List<String> campos, Set<String> asociaciones) {
+        EntityType<T> entidad = em.getMetamodel().entity(tipoDato);
+        LinkedHashSet<String> seleccion = new LinkedHashSet<>();
+        seleccion.add(atributoId(em).getName());
+        for (String campo : campos) {
+            Attribute<? super T, ?> atributo;
+            try {
+                atributo = entidad.getAttribute(campo);
+            } catch (IllegalArgumentException e) {
+                throw new ConsultaInvalidaException("Campo desconocido: " + campo);
+            }
+            if (atributo.isCollection() || esReferenciaInversa(atributo)) {
+                throw new ConsultaInvalidaException("No se puede proyectar el campo: " + campo);
+            }
+            if (atributo.isAssociation()) {
+                asociaciones.add(campo);
+            }
+            seleccion.add(campo);
+        }
+        return List.copyOf(seleccion);
+    }
+
+    /**
+     * Selecciones con alias de los campos ya validados por camposProyectables().
+     */
+    private List<Selection<?>> selecciones(EntityManager em, Root<T> root, List<String> campos) {
+        EntityType<T> entidad = em.getMetamodel().entity(tipoDato);
+        List<Selection<?>> selecciones = new ArrayList<>(campos.size());
+        for (String campo : campos) {
+            Path<?> ruta = root.get(campo);
+            if (entidad.getAttribute(campo).isAssociation()) {
+                // El ID de la asociación se resuelve con la clave foránea, sin JOIN
+                EntityType<?> destino = em.getMetamodel().entity(ruta.getJavaType());
+                ruta = ruta.get(destino.getId(destino.getIdType().getJavaType()).getName());
+            }
+            selecciones.add(ruta.alias(campo));
+        }
+        return selecciones;
+    }
+
+    private static Map<String, Object> aMapa(Tuple tupla, List<String> campos, Set<String> asociaciones) {
+        Map<String, Object> fila = new LinkedHashMap<>(campos.size() * 2);
+        for (int i = 0; i < campos.size(); i++) {
+            Object valor = tupla.get(i);
+            String campo = campos.get(i);
+            fila.put(campo, valor != null && asociaciones.contains(campo) ? Map.of("id", valor) : valor);
+        }
+        return fila;
+    }
+
+    /**
+     * Campos por los que se permite filtrar y ordenar: nombre público → ruta de atributos
+     * (por ejemplo "veterinario" → "idVeterinario.id"). Conviene que tengan índice.
+     */
+    protected Map<String, String> getCamposFiltrables() {
+        return Map.of();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <R> ConsultaCompilada<R> compilar(EntityManager em, Filtro filtro, boolean conteo, List<String> campos) {
+        String forma = filtro.forma();
+        // El conteo no depende del orden: se comparte entre filtros que solo difieren en él
+        String clave = tipoDato.getName() + (conteo ? "#conteo#" + forma.substring(0, forma.indexOf('|'))
+                : campos != null ? "#campos#" + String.join(",", campos) + "#" + forma
+                : "#lista#" + forma);
+        Map<String, ConsultaCompilada<?>> compiladas = CONSULTAS_COMPILADAS.computeIfAbsent(
+                em.getEntityManagerFactory(), emf -> new ConcurrentHashMap<>());
+        ConsultaCompilada<?> existente = compiladas.get(clave);
+        if (existente != null) {
+            return (ConsultaCompilada<R>) existente;
+        }
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery cq = conteo ? cb.createQuery(Long.class)
+                : campos != null ? cb.createTupleQuery() : cb.createQuery(tipoDato);
+        Root<T> root = cq.from(tipoDato);
+        List<Predicate> predicados = new ArrayList<>();
+        List<ParameterExpression<?>> parametros = new ArrayList<>();
+        List<Class<?>> tipos = new ArrayList<>();
+
+        for (Filtro.Condicion condicion : filtro.getCondiciones()) {
+            Path<?> ruta = rutaFiltrable(root, condicion.campo());
+            Class<?> tipo = ruta.getJavaType();
+            switch (condicion.operador()) {
+                case NULO -> predicados.add(Boolean.parseBoolean(condicion.valores().get(0))
+                        ? cb.isNull(ruta) : cb.isNotNull(ruta));
+                case IN -> {
+                    ParameterExpression<Collection> parametro = cb.parameter(Collection.class);
+                    predicados.add(ruta.in((Expression) parametro));
+                    parametros.add(parametro);
+                    tipos.add(tipo);
+                }
+                case EMPIEZA -> {
+                    if (tipo != String.class) {
+                        throw new ConsultaInvalidaException("El operador empieza solo aplica a texto: " + condicion.campo());
+                    }
+                    ParameterExpression<String> parametro = cb.parameter(String.class);
+                    predicados.add(cb.like((Expression<String>) ruta, parametro, '\\'));
+                    parametros.add(parametro);
+                    tipos.add(String.class);
+                }
+                default -> {
+                    ParameterExpression parametro = cb.parameter(tipo);
+                    predicados.add(comparar(cb, condicion.operador(), (Expression<Comparable>) ruta, parametro));
+                    parametros.add(parametro);
+                    tipos.add(tipo);
+                }
+            }
+        }
+        cq.where(predicados.toArray(new Predicate[0]));
+
+        if (conteo) {
+            cq.select(cb.count(root));
+        } else {
+            if (campos != null) {
+                cq.multiselect(selecciones(em, root, campos));
+            } else {
+                cq.select(root);
+            }
+            List<Order> orden = new ArrayList<>();
+            for (Filtro.Orden o : filtro.getOrden()) {
+                Path<?> ruta = rutaFiltrable(root, o.campo());
+                orden.add(o.descendente() ? cb.desc(ruta) : cb.asc(ruta));
+            }
+            orden.add(cb.asc(root.get(atributoId(em).getName()))); // desempate estable para paginar
+            cq.orderBy(orden);
+        }
+
+        ConsultaCompilada<R> compilada = new ConsultaCompilada<>(cq, List.copyOf(parametros), List.copyOf(tipos));
+        if (compiladas.size() < MAX_CONSULTAS_COMPILADAS) {
+            compiladas.putIfAbsent(clave, compilada);
+        }
+        return compilada;
+    }
+
+    /**
+     * Ruta de atributos de un campo permitido; los campos fuera de getCamposFiltrables() se rechazan.
+     */
+    private Path<?> rutaFiltrable(Root<T> root, String campo) {
+        String ruta = getCamposFiltrables().get(campo);
+        if (ruta == null) {
+            throw new ConsultaInvalidaException("No se permite filtrar ni ordenar por: " + campo);
+        }
+        Path<?> path = root;
+        for (String atributo : ruta.split("\\.")) {
+            path = path.get(atributo);
+        }
+        return path;
+    }
+
+    /**
+     * Valores del filtro convertidos al tipo de cada parámetro, en el mismo orden.
+     */
+    private static List<Object> valores(ConsultaCompilada<?> compilada, Filtro filtro) {
+        List<Object> valores = new ArrayList<>(compilada.parametros().size());
+        int i = 0;
+        for (Filtro.Condicion condicion : filtro.getCondiciones()) {
+            switch (condicion.operador()) {
+                case NULO -> {
+                }
+                case IN -> {
+                    Class<?> tipo = compilada.tipos().get(i++);
+                    List<Object> lista = new ArrayList<>(condicion.valores().size());
+                    for (String valor : condicion.valores()) {
+                        lista.add(convertir(valor, tipo));
+                    }
+                    valores.add(lista);
+                }
+                case EMPIEZA -> {
+                    i++;
+                    valores.add(condicion.valores().get(0).replace("\\", "\\\\")
+                            .replace("%", "\\%").replace("_", "\\_") + "%");
+                }
+                default -> valores.add(convertir(condicion.valores().get(0), compilada.tipos().get(i++)));
+            }
+        }
+        return valores;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void vincular(TypedQuery<?> query, ConsultaCompilada<?> compilada, List<Object> valores) {
+        for (int i = 0; i < valores.size(); i++) {
+            query.setParameter((Parameter) compilada.parametros().get(i), valores.get(i));
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate comparar(CriteriaBuilder cb, Filtro.Operador operador,
+                                      Expression<Comparable> ruta, Expression<Comparable> valor) {
+        return switch (operador) {
+            case EQ -> cb.equal(ruta, valor);
+            case NE -> cb.notEqual(ruta, valor);
+            case LT -> cb.lessThan(ruta, valor);
+            case LE -> cb.lessThanOrEqualTo(ruta, valor);
+            case GT -> cb.greaterThan(ruta, valor);
+            case GE -> cb.greaterThanOrEqualTo(ruta, valor);
+            default -> throw new IllegalArgumentException("Operador no comparativo: " + operador);
+        };
+    }
+
     /**
      * Cuenta el total de entidades almacenadas.
      */
@@ -148,7 +1079,109 @@ public abstract class AbstractDataPersistence<T> {
         }
     }
 
+    /**
+     * Recorre todas las entidades ordenadas por ID sin cargarlas en una lista.
+     * Usa un cursor del servidor con el fetch size indicado y vacía el contexto de
+     * persistencia cada fetchSize entidades, de modo que la memoria usada no depende
+     * del tamaño de la tabla. Vaciar el contexto también suelta las relaciones que el
+     * consumidor haya cargado, pero desvincula cualquier otra entidad gestionada en la
+     * transacción: conviene llamarlo sin cambios pendientes.
+     * @param fetchSize filas que el driver trae por viaje a la base.
+     * @param grafo grafo de listado (sin colecciones), o null.
+     * @param consumidor recibe cada entidad mientras sigue gestionada (puede navegar relaciones).
+     */
+    public void recorrerTodos(int fetchSize, String grafo, Consumer<? super T> consumidor) {
+        if (fetchSize <= 0 || consumidor == null) {
+            throw new IllegalArgumentException("Parámetros no válidos: fetchSize <= 0 o consumidor nulo.");
+        }
+
+        EntityManager em = requireEntityManager();
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> cq = cb.createQuery(tipoDato);
+        Root<T> root = cq.from(tipoDato);
+        cq.select(root).orderBy(cb.asc(root.get(atributoId(em).getName())));
+
+        TypedQuery<T> query = em.createQuery(cq);
+        query.setHint(HINT_FETCH_SIZE, fetchSize);
+        query.setHint(HINT_READ_ONLY, true); // sin snapshots para dirty checking
+        aplicarGrafo(em, query, grafo);
+
+        int[] entregadas = {0};
+        try (Stream<T> stream = query.getResultStream()) {
+            stream.forEach(entity -> {
+                consumidor.accept(entity);
+                if (++entregadas[0] % fetchSize == 0) {
+                    em.clear(); // el consumidor ya escribió el lote; se sueltan también sus relaciones
+                }
+            });
+        }
+    }
+
+    /**
+     * Total de registros según la estrategia de la entidad (ver getEstrategiaConteo()).
+     * Evita ejecutar COUNT(*) en cada petición de paginación.
+     */
+    public Conteo contar() {
+        if (getEstrategiaConteo() == EstrategiaConteo.ESTIMADO) {
+            long estimado = estimarConteo();
+            if (estimado >= UMBRAL_ESTIMACION) {
+                return new Conteo(estimado, EstrategiaConteo.ESTIMADO);
+            }
+            // Tabla pequeña o sin estadísticas: el conteo exacto es barato y más preciso.
+        }
+        if (getEstrategiaConteo() != EstrategiaConteo.EXACTO) {
+            Long enCache = ConteoCache.obtener(tipoDato);
+            if (enCache != null) {
+                return new Conteo(enCache, EstrategiaConteo.CACHE);
+            }
+            long total = count();
+            if (!ModoLectura.leyoDeReplica()) { // un conteo de la réplica puede ir atrasado
+                ConteoCache.guardar(tipoDato, total);
+            }
+            return new Conteo(total, EstrategiaConteo.EXACTO);
+        }
+        return new Conteo(count(), EstrategiaConteo.EXACTO);
+    }
+
+    /**
+     * Estrategia de conteo de la entidad. Las tablas grandes deberían usar ESTIMADO.
+     */
+    protected EstrategiaConteo getEstrategiaConteo() {
+        return EstrategiaConteo.CACHE;
+    }
+
+    /**
+     * Número de filas estimado por PostgreSQL tras el último ANALYZE/autovacuum.
+     * @return la estimación, o -1 si la tabla nunca fue analizada.
+     */
+    private long estimarConteo() {
+        try {
+            Object resultado = requireEntityManager()
+                    .createNativeQuery("SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?1)")
+                    .setParameter(1, nombreTabla())
+                    .getSingleResult();
+            return ((Number) resultado).longValue();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al estimar el conteo de las entidades.", ex);
+        }
+    }
+
+    /**
+     * Nombre de la tabla de la entidad según su anotación @Table.
+     */
+    protected String nombreTabla() {
+        Table tabla = tipoDato.getAnnotation(Table.class);
+        return tabla != null && !tabla.name().isEmpty() ? tabla.name() : tipoDato.getSimpleName();
+    }
+
     public List<T> findAll() {
+        return findAll(null);
+    }
+
+    /**
+     * Retorna todas las entidades aplicando un grafo de listado (o null).
+     */
+    public List<T> findAll(String grafo) {
         try {
             EntityManager em = requireEntityManager();
             CriteriaBuilder cb = em.getCriteriaBuilder();
@@ -157,9 +1190,239 @@ public abstract class AbstractDataPersistence<T> {
             cq.select(root);
 
             TypedQuery<T> query = em.createQuery(cq);
+            aplicarGrafo(em, query, grafo);
             return query.getResultList();
         } catch (Exception ex) {
             throw new IllegalStateException("Error al obtener todas las entidades.", ex);
         }
     }
+
+    /**
+     * Asigna un valor (o NULL tipado) a una columna del UPDATE.
+     */
+    private static <T, Y> void asignar(CriteriaBuilder cb, CriteriaUpdate<T> cu, Path<Y> ruta,
+                                       Class<Y> tipo, Object valor) {
+        if (valor == null) {
+            cu.set(ruta, cb.nullLiteral(tipo));
+        } else {
+            cu.set(ruta, tipo.cast(valor));
+        }
+    }
+
+    private static boolean esReferenciaInversa(Attribute<?, ?> atributo) {
+        return atributo.getJavaMember() instanceof Field campo && campo.isAnnotationPresent(JsonBackReference.class);
+    }
+
+    private void registrarCambio() {
+        registrarCambio(tipoDato);
+    }
+
+    /**
+     * Invalida el conteo en caché y avanza la marca de cambios de la tabla. Dentro de una
+     * transacción lo repite al terminar (una vez por tabla): una lectura concurrente pudo tomar
+     * la marca nueva o guardar un conteo con los datos previos al commit.
+     * Las subclases lo usan para las tablas que la base modifica en cascada (ver despuesDeBorrar).
+     */
+    protected void registrarCambio(Class<?> tipo) {
+        ConteoCache.invalidar(tipo);
+        MarcaCambios.marcar(tipo);
+        if (transacciones == null || transacciones.getTransactionKey() == null) {
+            return;
+        }
+        String clave = MarcaCambios.class.getName() + ":" + tipo.getName();
+        if (transacciones.getResource(clave) != null) {
+            return;
+        }
+        transacciones.putResource(clave, Boolean.TRUE);
+        alTerminarTransaccion(() -> {
+            ConteoCache.invalidar(tipo);
+            MarcaCambios.marcar(tipo);
+        });
+    }
+
+    /**
+     * Ejecuta la acción al terminar la transacción actual (confirmada o no). Sin transacción no hace nada.
+     */
+    protected void alTerminarTransaccion(Runnable accion) {
+        Transacciones.alTerminar(transacciones, status -> accion.run());
+    }
+
+    private void registrarModificacion(Object id, Set<String> atributos) {
+        registrarCambio();
+        despuesDeModificar(id, atributos);
+    }
+
+    /**
+     * Punto de extensión tras modificar o borrar filas existentes, o tras un alta en lote,
+     * dentro de la transacción. No se invoca en create(): las subclases que necesiten
+     * reaccionar a un alta individual sobrescriben create().
+     * @param id        ID de la fila modificada o borrada, o null si pudieron cambiar varias (alta en lote).
+     * @param atributos atributos escritos, o null si pudo cambiar cualquiera o se borraron filas.
+     */
+    protected void despuesDeModificar(Object id, Set<String> atributos) {
+    }
+
+    /**
+     * Punto de extensión tras borrar una fila, dentro de la transacción y después de
+     * despuesDeModificar. Las filas dependientes las borra o desvincula la base
+     * (ON DELETE CASCADE / SET NULL en sql/base.sql) sin pasar por sus DAOs: las subclases
+     * registran aquí el cambio de esas tablas y descartan lo que tengan en memoria.
+     */
+    protected void despuesDeBorrar(Object id) {
+    }
+
+    /**
+     * Aplica un @NamedEntityGraph como fetch graph: se unen solo las asociaciones del grafo
+     * y las demás quedan perezosas (el JSON las omite si no se cargaron).
+     */
+    private static void aplicarGrafo(EntityManager em, TypedQuery<?> query, String grafo) {
+        if (grafo != null) {
+            query.setHint(HINT_FETCH_GRAPH, em.getEntityGraph(grafo));
+        }
+    }
+
+    private SingularAttribute<? super T, ?> atributoId(EntityManager em) {
+        EntityType<T> tipo = em.getMetamodel().entity(tipoDato);
+        for (SingularAttribute<? super T, ?> atributo : tipo.getSingularAttributes()) {
+            if (atributo.isId()) {
+                return atributo;
+            }
+        }
+        throw new IllegalStateException("La entidad " + tipoDato.getSimpleName() + " no tiene ID simple.");
+    }
+
+    private SingularAttribute<? super T, ?> atributoVersion(EntityManager em) {
+        for (SingularAttribute<? super T, ?> atributo : em.getMetamodel().entity(tipoDato).getSingularAttributes()) {
+            if (atributo.isVersion()) {
+                return atributo;
+            }
+        }
+        throw new IllegalStateException("La entidad " + tipoDato.getSimpleName() + " no tiene columna @Version.");
+    }
+
+    private SingularAttribute<? super T, ?> atributoOrden(EntityManager em, String ordenarPor,
+                                                        SingularAttribute<? super T, ?> atributoId) {
+        if (ordenarPor == null || ordenarPor.equals(atributoId.getName())) {
+            return null;
+        }
+        if (!getColumnasOrdenables().contains(ordenarPor)) {
+            throw new ConsultaInvalidaException("No se permite ordenar por: " + ordenarPor);
+        }
+        return em.getMetamodel().entity(tipoDato).getSingularAttribute(ordenarPor);
+    }
+
+    /**
+     * El cursor es opaco para el cliente: "campo\nid[\nvalor]" codificado en Base64 URL.
+     */
+    private String codificarCursor(T ultimo, SingularAttribute<? super T, ?> atributoId,
+                                   SingularAttribute<? super T, ?> atributoOrden) {
+        if (atributoOrden == null) {
+            return codificarCursor(atributoId.getName(), leerAtributo(ultimo, atributoId), null);
+        }
+        Object valor = leerAtributo(ultimo, atributoOrden);
+        if (valor == null) {
+            throw new IllegalStateException("Valor nulo en columna de orden: " + atributoOrden.getName());
+        }
+        return codificarCursor(atributoOrden.getName(), leerAtributo(ultimo, atributoId), valor);
+    }
+
+    /**
+     * Cursor opaco "campo\nid[\nvalor]" en Base64 URL.
+     */
+    static String codificarCursor(String campo, Object id, Object valor) {
+        StringBuilder sb = new StringBuilder(campo).append('\n').append(id);
+        if (valor != null) {
+            sb.append('\n').append(valor);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param campoOrden campo de orden esperado en el cursor, o null si se ordena solo por ID.
+     */
+    static String[] decodificarCursor(String cursor, String campoOrden) {
+        String[] partes;
+        try {
+            partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 3);
+        } catch (IllegalArgumentException ex) {
+            throw new ConsultaInvalidaException("Cursor no válido.", ex);
+        }
+        int esperadas = campoOrden == null ? 2 : 3;
+        if (partes.length != esperadas || (campoOrden != null && !partes[0].equals(campoOrden))) {
+            throw new ConsultaInvalidaException("Cursor no válido para el orden solicitado.");
+        }
+        return partes;
+    }
+
+    /**
+     * Lee el valor de un atributo persistente de la entidad (acceso por campo o por getter).
+     */
+    protected static Object leerAtributo(Object entity, Attribute<?, ?> atributo) {
+        Member miembro = atributo.getJavaMember();
+        try {
+            if (miembro instanceof Field campo) {
+                campo.setAccessible(true);
+                return campo.get(entity);
+            }
+            if (miembro instanceof Method metodo) {
+                metodo.setAccessible(true);
+                return metodo.invoke(entity);
+            }
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("No se pudo leer el atributo " + atributo.getName(), ex);
+        }
+        throw new IllegalStateException("Atributo no accesible: " + atributo.getName());
+    }
+
+    /**
+     * Escribe un atributo persistente de la entidad; las entidades usan acceso por campo.
+     */
+    private static void escribirAtributo(Object entity, Attribute<?, ?> atributo, Object valor) {
+        if (!(atributo.getJavaMember() instanceof Field campo)) {
+            throw new IllegalStateException("Atributo no accesible: " + atributo.getName());
+        }
+        try {
+            campo.setAccessible(true);
+            campo.set(entity, valor);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("No se pudo escribir el atributo " + atributo.getName(), ex);
+        }
+    }
+
+    /**
+     * Convierte un valor recibido como texto al tipo Java del atributo.
+     * @throws ConsultaInvalidaException si el valor no es válido para el tipo.
+     */
+    protected static Object convertir(String valor, Class<?> tipo) {
+        try {
+            if (tipo == String.class) {
+                return valor;
+            } else if (tipo == Integer.class || tipo == int.class) {
+                return Integer.valueOf(valor);
+            } else if (tipo == Long.class || tipo == long.class) {
+                return Long.valueOf(valor);
+            } else if (tipo == Float.class || tipo == float.class) {
+                return Float.valueOf(valor);
+            } else if (tipo == BigDecimal.class) {
+                return new BigDecimal(valor);
+            } else if (tipo == LocalDate.class) {
+                return LocalDate.parse(valor);
+            } else if (tipo == LocalTime.class) {
+                return LocalTime.parse(valor);
+            } else if (tipo == LocalDateTime.class) {
+                return LocalDateTime.parse(valor);
+            } else if (tipo == Boolean.class || tipo == boolean.class) {
+                return Boolean.valueOf(valor);
+            }
+        } catch (RuntimeException ex) {
+            throw new ConsultaInvalidaException("Valor no válido '" + valor + "' para " + tipo.getSimpleName(), ex);
+        }
+        throw new ConsultaInvalidaException("Tipo no soportado: " + tipo.getSimpleName());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate mayorQue(CriteriaBuilder cb, Expression<?> expresion, Object valor) {
+        return cb.greaterThan((Expression<Comparable>) expresion, (Comparable) valor);
+    }
 }
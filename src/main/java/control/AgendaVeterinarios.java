@@ -0,0 +1,272 @@
+package control;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Índice en memoria de turnos ocupados por veterinario y día: un BitSet con un bit por turno
+ * del horario de atención, ocupado si hay una cita que empieza a esa hora exacta (la misma
+ * regla que el índice único). Cada día se carga desde la base la primera vez que se consulta.
+ * Los candados se reparten por franjas (veterinario, día), así que las reservas de
+ * veterinarios distintos no compiten entre sí.
+ * El índice único parcial de citas (sql/base.sql) sigue siendo la garantía final.
+ */
+@ApplicationScoped
+public class AgendaVeterinarios {
+
+    private static final Logger LOG = Logger.getLogger(AgendaVeterinarios.class.getName());
+
+    private static final int FRANJAS_CANDADOS = 64;
+
+    // Cota de días en memoria; al superarla se descarta el índice y se recarga bajo demanda
+    private static final int MAX_DIAS = 50_000;
+
+    @Inject
+    @ConfigProperty(name = "mascotas.agenda.apertura", defaultValue = "08:00")
+    String apertura;
+
+    @Inject
+    @ConfigProperty(name = "mascotas.agenda.cierre", defaultValue = "18:00")
+    String cierre;
+
+    @Inject
+    @ConfigProperty(name = "mascotas.agenda.minutos-por-turno", defaultValue = "30")
+    int minutosPorTurno;
+
+    @Resource
+    TransactionSynchronizationRegistry transacciones;
+
+    private record Clave(Integer veterinario, LocalDate fecha) {
+    }
+
+    private final ConcurrentHashMap<Clave, BitSet> dias = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] candados = new ReentrantLock[FRANJAS_CANDADOS];
+
+    // Cambia con cada invalidación; evita guardar un día leído antes de una modificación
+    private final AtomicLong generacion = new AtomicLong();
+
+    private LocalTime horaApertura;
+
+    private int turnosPorDia;
+
+    @PostConstruct
+    void init() {
+        horaApertura = LocalTime.parse(apertura);
+        LocalTime horaCierre = LocalTime.parse(cierre);
+        if (minutosPorTurno <= 0 || !horaCierre.isAfter(horaApertura)) {
+            throw new IllegalStateException("Horario de agenda inválido: " + apertura + "-" + cierre
+                    + " cada " + minutosPorTurno + " minutos");
+        }
+        turnosPorDia = (int) (ChronoUnit.MINUTES.between(horaApertura, horaCierre) / minutosPorTurno);
+        for (int i = 0; i < candados.length; i++) {
+            candados[i] = new ReentrantLock();
+        }
+        LOG.info("Agenda de " + apertura + " a " + cierre + ", " + turnosPorDia + " turnos de " + minutosPorTurno + " minutos");
+    }
+
+    public int getMinutosPorTurno() {
+        return minutosPorTurno;
+    }
+
+    /**
+     * Turno que empieza exactamente a la hora indicada. Como el índice único de citas, que
+     * compara la hora exacta, una hora intermedia (09:10) no ocupa el turno que la contiene.
+     * @return índice del turno, o -1 si la hora no es el inicio de un turno del horario.
+     */
+    public int turno(LocalTime hora) {
+        if (hora == null || hora.isBefore(horaApertura)) {
+            return -1;
+        }
+        long minutos = ChronoUnit.MINUTES.between(horaApertura, hora);
+        long turno = minutos / minutosPorTurno;
+        if (turno >= turnosPorDia || !inicioDeTurno((int) turno).equals(hora)) {
+            return -1;
+        }
+        return (int) turno;
+    }
+
+    /**
+     * Indica si la hora coincide exactamente con el inicio de un turno.
+     */
+    public boolean esInicioDeTurno(LocalTime hora) {
+        return turno(hora) >= 0;
+    }
+
+    private LocalTime inicioDeTurno(int turno) {
+        return horaApertura.plusMinutes((long) turno * minutosPorTurno);
+    }
+
+    /**
+     * Horas de inicio de los turnos libres del veterinario en el día.
+     * @param ocupadas carga las horas ocupadas desde la base si el día no está en memoria.
+     */
+    public List<LocalTime> libres(Integer veterinario, LocalDate fecha, Supplier<List<LocalTime>> ocupadas) {
+        Clave clave = new Clave(veterinario, fecha);
+        BitSet ocupados;
+        ReentrantLock candado = candado(clave);
+        candado.lock();
+        try {
+            ocupados = (BitSet) dia(clave, ocupadas).clone();
+        } finally {
+            candado.unlock();
+        }
+
+        List<LocalTime> libres = new ArrayList<>(turnosPorDia - ocupados.cardinality());
+        for (int turno = ocupados.nextClearBit(0); turno < turnosPorDia; turno = ocupados.nextClearBit(turno + 1)) {
+            libres.add(inicioDeTurno(turno));
+        }
+        return libres;
+    }
+
+    /**
+     * Comprueba que el turno esté libre, lo marca y ejecuta el alta sin soltar el candado
+     * del veterinario y día. Si la transacción no se confirma, el turno se libera al terminar.
+     * Una hora que no es inicio de turno (intermedia o fuera del horario) no se registra en el
+     * índice y solo la controla la base.
+     * @param ocupadas carga las horas ocupadas desde la base si el día no está en memoria.
+     * @param alta     inserta la cita en la transacción actual.
+     * @throws ConflictoException si el turno ya está ocupado.
+     */
+    public void reservar(Integer veterinario, LocalDate fecha, LocalTime hora,
+                         Supplier<List<LocalTime>> ocupadas, Runnable alta) {
+        int turno = turno(hora);
+        if (turno < 0) {
+            alta.run();
+            return;
+        }
+
+        Clave clave = new Clave(veterinario, fecha);
+        ReentrantLock candado = candado(clave);
+        candado.lock();
+        try {
+            BitSet ocupados = dia(clave, ocupadas);
+            if (ocupados.get(turno)) {
+                throw new ConflictoException("El veterinario " + veterinario + " ya tiene una cita el "
+                        + fecha + " a las " + inicioDeTurno(turno));
+            }
+            ocupados.set(turno);
+            Transacciones.alTerminar(transacciones, status -> {
+                if (status != Status.STATUS_COMMITTED) {
+                    liberar(clave, ocupados, turno);
+                }
+            });
+            alta.run();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Libera el turno que ocupaba una cita movida, cancelada o borrada, cuando la transacción
+     * se confirma (antes seguiría ocupado en la base). Los días que se estén cargando en ese
+     * momento se descartan, porque pudieron leer la cita todavía en su turno.
+     */
+    public void liberarAlConfirmar(Integer veterinario, LocalDate fecha, LocalTime hora) {
+        int turno = turno(hora);
+        if (veterinario == null || fecha == null || turno < 0) {
+            return;
+        }
+        Clave clave = new Clave(veterinario, fecha);
+        Transacciones.alConfirmar(transacciones, () -> {
+            ReentrantLock candado = candado(clave);
+            candado.lock();
+            try {
+                generacion.incrementAndGet();
+                BitSet ocupados = dias.get(clave);
+                if (ocupados != null) {
+                    ocupados.clear(turno);
+                }
+            } finally {
+                candado.unlock();
+            }
+        });
+    }
+
+    /**
+     * Descarta todo el índice; cada día se vuelve a cargar desde la base al consultarlo.
+     * Dentro de una transacción se descarta otra vez al terminar, por si una consulta
+     * concurrente cargó el estado previo al commit.
+     */
+    public void invalidar() {
+        vaciar();
+        Transacciones.alTerminar(transacciones, status -> vaciar());
+    }
+
+    /**
+     * Descarta solo el día del veterinario indicado, también al terminar la transacción.
+     */
+    public void invalidar(Integer veterinario, LocalDate fecha) {
+        Clave clave = new Clave(veterinario, fecha);
+        descartar(clave);
+        Transacciones.alTerminar(transacciones, status -> descartar(clave));
+    }
+
+    private void descartar(Clave clave) {
+        generacion.incrementAndGet();
+        dias.remove(clave);
+    }
+
+    private void vaciar() {
+        generacion.incrementAndGet();
+        dias.clear();
+    }
+
+    private void liberar(Clave clave, BitSet ocupados, int turno) {
+        ReentrantLock candado = candado(clave);
+        candado.lock();
+        try {
+            // Si el día se recargó mientras tanto, el BitSet nuevo ya refleja la base
+            if (dias.get(clave) == ocupados) {
+                ocupados.clear(turno);
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Día del índice, cargándolo si hace falta. Se llama con el candado de la clave tomado.
+     */
+    private BitSet dia(Clave clave, Supplier<List<LocalTime>> ocupadas) {
+        BitSet ocupados = dias.get(clave);
+        if (ocupados != null) {
+            return ocupados;
+        }
+        long leida = generacion.get();
+        ocupados = new BitSet(turnosPorDia);
+        for (LocalTime hora : ocupadas.get()) {
+            int turno = turno(hora);
+            if (turno >= 0) {
+                ocupados.set(turno);
+            }
+        }
+        if (dias.size() >= MAX_DIAS) {
+            vaciar();
+        } else if (leida == generacion.get()) {
+            dias.put(clave, ocupados);
+        }
+        return ocupados;
+    }
+
+    private ReentrantLock candado(Clave clave) {
+        return candados[Math.floorMod(clave.hashCode(), candados.length)];
+    }
+}
@@ -3,9 +3,21 @@ package control;
 import entity.Cita;
 import jakarta.ejb.LocalBean;
 import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
 import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntSupplier;
 
 
 
@@ -13,9 +25,20 @@ import java.io.Serializable;
 @LocalBean
 public class CitaDAO extends AbstractDataPersistence<Cita> implements Serializable {
 
+    public static final String GRAFO_LISTA = "Cita.lista";
+
+    // Una cita cancelada no ocupa turno (igual que el índice único parcial de sql/base.sql)
+    public static final String ESTADO_CANCELADA = "cancelada";
+
+    // Atributos que cambian la ocupación de la agenda
+    private static final Set<String> ATRIBUTOS_AGENDA = Set.of("fecha", "hora", "idVeterinario", "estado");
+
     @PersistenceContext(unitName = "JPA")
     private EntityManager em;
 
+    @Inject
+    private AgendaVeterinarios agenda;
+
     public CitaDAO() {
         super(Cita.class);
     }
@@ -24,6 +47,245 @@ public class CitaDAO extends AbstractDataPersistence<Cita> implements Serializab
     public EntityManager getEntityManager() {
         return em;
     }
-}
 
+    @Override
+    protected Set<String> getColumnasOrdenables() {
+        return Set.of("fecha"); // índice en sql/base.sql
+    }
+
+    @Override
+    protected EstrategiaConteo getEstrategiaConteo() {
+        return EstrategiaConteo.ESTIMADO; // tabla de mayor crecimiento
+    }
+
+    @Override
+    protected Map<String, String> getCamposFiltrables() {
+        // veterinario + fecha usan uq_citas_veterinario_turno; fecha sola, idx_citas_fecha_id
+        return Map.of("fecha", "fecha", "hora", "hora", "estado", "estado",
+                "veterinario", "idVeterinario.id", "mascota", "idMascota.id");
+    }
+
+    /**
+     * Alta con comprobación de turno: si la cita tiene veterinario y no está cancelada,
+     * se marca su turno en la agenda y se inserta sin soltar el candado del veterinario y día.
+     * @throws ConflictoException si el veterinario ya tiene una cita en ese turno.
+     */
+    @Override
+    public void create(Cita cita) {
+        if (cita == null || cita.getIdVeterinario() == null || cita.getIdVeterinario().getId() == null
+                || cita.getFecha() == null || ESTADO_CANCELADA.equals(cita.getEstado())) {
+            super.create(cita);
+            return;
+        }
+        Integer veterinario = cita.getIdVeterinario().getId();
+        agenda.reservar(veterinario, cita.getFecha(), cita.getHora(),
+                () -> horasOcupadas(veterinario, cita.getFecha()),
+                () -> super.create(cita));
+    }
+
+    /**
+     * Reserva un turno: como create(), pero la hora debe ser el inicio de un turno del horario.
+     * @throws ConsultaInvalidaException si falta el veterinario o la hora no es un inicio de turno.
+     * @throws ConflictoException si el turno ya está ocupado.
+     */
+    public void reservar(Cita cita) {
+        if (cita == null || cita.getIdVeterinario() == null || cita.getIdVeterinario().getId() == null
+                || cita.getFecha() == null) {
+            throw new ConsultaInvalidaException("La reserva requiere veterinario, fecha y hora");
+        }
+        if (!agenda.esInicioDeTurno(cita.getHora())) {
+            throw new ConsultaInvalidaException("La hora debe ser el inicio de un turno de "
+                    + agenda.getMinutosPorTurno() + " minutos dentro del horario de atención");
+        }
+        if (ESTADO_CANCELADA.equals(cita.getEstado())) {
+            throw new ConsultaInvalidaException("No se puede reservar una cita cancelada");
+        }
+        create(cita);
+    }
+
+    /**
+     * PUT con comprobación de turno: si la cita pasa a ocupar otro turno, se reserva en la agenda
+     * igual que en create().
+     * @throws ConflictoException si el veterinario ya tiene una cita en el turno nuevo.
+     */
+    @Override
+    public int updateById(Object id, Cita cita, Long versionEsperada) {
+        if (id == null || cita == null) {
+            return super.updateById(id, cita, versionEsperada);
+        }
+        return moverTurno(id, cita, null, () -> super.updateById(id, cita, versionEsperada));
+    }
+
+    /**
+     * PATCH con comprobación de turno cuando el parche toca fecha, hora, veterinario o estado.
+     * @throws ConflictoException si el veterinario ya tiene una cita en el turno nuevo.
+     */
+    @Override
+    public int updateParcial(Object id, Cita valores, Set<String> nombres, Long versionEsperada) {
+        if (id == null || valores == null || nombres == null || nombres.stream().noneMatch(ATRIBUTOS_AGENDA::contains)) {
+            return super.updateParcial(id, valores, nombres, versionEsperada);
+        }
+        return moverTurno(id, valores, nombres, () -> super.updateParcial(id, valores, nombres, versionEsperada));
+    }
+
+    /**
+     * Turno que ocupa (o no) una cita.
+     */
+    private record Turno(Integer veterinario, LocalDate fecha, LocalTime hora, String estado) {
+
+        boolean ocupa() {
+            return veterinario != null && fecha != null && !ESTADO_CANCELADA.equals(estado);
+        }
+    }
+
+    /**
+     * Lee el turno guardado de la cita (una consulta de columnas, sin cargarla), calcula el nuevo
+     * con los atributos que se escriben y, si cambia, ejecuta la actualización con el turno nuevo
+     * reservado en la agenda. El turno anterior se libera al confirmar; el resto de la agenda
+     * no se toca.
+     * @param nombres atributos que se escriben, o null si se escriben todos (PUT).
+     */
+    private int moverTurno(Object id, Cita valores, Set<String> nombres, IntSupplier actualizacion) {
+        Turno anterior = turnoGuardado(id);
+        if (anterior == null) {
+            return actualizacion.getAsInt(); // no existe: 0 filas
+        }
+        Turno nuevo = new Turno(
+                escribe(nombres, "idVeterinario")
+                        ? (valores.getIdVeterinario() != null ? valores.getIdVeterinario().getId() : null)
+                        : anterior.veterinario(),
+                escribe(nombres, "fecha") ? valores.getFecha() : anterior.fecha(),
+                escribe(nombres, "hora") ? valores.getHora() : anterior.hora(),
+                escribe(nombres, "estado") ? valores.getEstado() : anterior.estado());
+        boolean mismoTurno = anterior.ocupa() && nuevo.ocupa()
+                && nuevo.veterinario().equals(anterior.veterinario()) && nuevo.fecha().equals(anterior.fecha())
+                && agenda.turno(nuevo.hora()) == agenda.turno(anterior.hora());
+        if (mismoTurno) {
+            return actualizacion.getAsInt();
+        }
+
+        int filas;
+        if (nuevo.ocupa()) {
+            int[] escritas = new int[1];
+            agenda.reservar(nuevo.veterinario(), nuevo.fecha(), nuevo.hora(),
+                    () -> horasOcupadas(nuevo.veterinario(), nuevo.fecha()),
+                    () -> escritas[0] = actualizacion.getAsInt());
+            filas = escritas[0];
+            if (filas == 0) {
+                // La versión no coincidió: el turno quedó marcado sin que se escribiera nada
+                agenda.invalidar(nuevo.veterinario(), nuevo.fecha());
+            }
+        } else {
+            filas = actualizacion.getAsInt();
+        }
+        if (filas > 0) {
+            liberarTurno(anterior);
+        }
+        return filas;
+    }
+
+    /**
+     * Borrado con la agenda al día: solo se libera el turno de la cita borrada.
+     */
+    @Override
+    public int deleteById(Object id) {
+        Turno anterior = id != null ? turnoGuardado(id) : null;
+        int filas = super.deleteById(id);
+        if (filas > 0) {
+            liberarTurno(anterior);
+        }
+        return filas;
+    }
+
+    @Override
+    public void delete(Cita cita) {
+        super.delete(cita);
+        liberarTurno(turnoDe(cita));
+    }
+
+    @Override
+    public Cita update(Cita cita) {
+        Turno anterior = cita != null && cita.getId() != null ? turnoGuardado(cita.getId()) : null;
+        Cita actualizada = super.update(cita);
+        Turno nuevo = turnoDe(actualizada);
+        if (anterior != null && !anterior.equals(nuevo)) {
+            liberarTurno(anterior);
+            if (nuevo.ocupa()) {
+                agenda.invalidar(nuevo.veterinario(), nuevo.fecha()); // merge sin comprobar turno
+            }
+        }
+        return actualizada;
+    }
+
+    private void liberarTurno(Turno turno) {
+        if (turno != null && turno.ocupa()) {
+            agenda.liberarAlConfirmar(turno.veterinario(), turno.fecha(), turno.hora());
+        }
+    }
 
+    private static Turno turnoDe(Cita cita) {
+        return new Turno(cita.getIdVeterinario() != null ? cita.getIdVeterinario().getId() : null,
+                cita.getFecha(), cita.getHora(), cita.getEstado());
+    }
+
+    private static boolean escribe(Set<String> nombres, String atributo) {
+        return nombres == null || nombres.contains(atributo);
+    }
+
+    private Turno turnoGuardado(Object id) {
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+            Root<Cita> root = cq.from(Cita.class);
+            cq.multiselect(root.get("idVeterinario").get("id"), root.get("fecha"), root.get("hora"), root.get("estado"))
+                    .where(cb.equal(root.get("id"), id));
+            List<Tuple> filas = em.createQuery(cq).getResultList();
+            if (filas.isEmpty()) {
+                return null;
+            }
+            Tuple fila = filas.get(0);
+            return new Turno(fila.get(0, Integer.class), fila.get(1, LocalDate.class),
+                    fila.get(2, LocalTime.class), fila.get(3, String.class));
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al consultar el turno de la cita.", ex);
+        }
+    }
+
+    /**
+     * Horas de inicio de los turnos libres del veterinario en la fecha indicada.
+     */
+    public List<LocalTime> disponibilidad(Integer veterinario, LocalDate fecha) {
+        if (veterinario == null || fecha == null) {
+            throw new ConsultaInvalidaException("Se requieren veterinario y fecha");
+        }
+        return agenda.libres(veterinario, fecha, () -> horasOcupadas(veterinario, fecha));
+    }
+
+    /**
+     * Horas de las citas no canceladas del veterinario en la fecha (solo la columna hora).
+     */
+    private List<LocalTime> horasOcupadas(Integer veterinario, LocalDate fecha) {
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<LocalTime> cq = cb.createQuery(LocalTime.class);
+            Root<Cita> root = cq.from(Cita.class);
+            cq.select(root.get("hora")).where(
+                    cb.equal(root.get("idVeterinario").get("id"), veterinario),
+                    cb.equal(root.get("fecha"), fecha),
+                    cb.or(cb.isNull(root.get("estado")), cb.notEqual(root.get("estado"), ESTADO_CANCELADA)));
+            List<LocalTime> horas = em.createQuery(cq).getResultList();
+            return horas != null ? horas : Collections.emptyList();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al consultar los turnos ocupados.", ex);
+        }
+    }
+
+    @Override
+    protected void despuesDeModificar(Object id, Set<String> atributos) {
+        // Las modificaciones y bajas de una cita actualizan su turno arriba; un alta en lote
+        // (id null) puede ocupar cualquier día y descarta la agenda completa
+        if (id == null) {
+            agenda.invalidar();
+        }
+    }
+}
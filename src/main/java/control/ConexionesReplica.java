@@ -0,0 +1,73 @@
+package control;
+
+import monitoreo.ConexionesMedidas;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Proveedor de conexiones que envía a la réplica de lectura (el DataSource de
+ * mascotas.replica.jndi) las transacciones de ModoLectura que lo permiten; las escrituras y
+ * todo lo demás van al jta-data-source del persistence.xml. Sin mascotas.replica.jndi, o si
+ * la réplica no entrega una conexión, se usa el principal.
+ * Cada transacción de ModoLectura usa una sola de las dos bases, así que los DataSource no
+ * necesitan ser XA.
+ */
+public class ConexionesReplica extends ConexionesMedidas {
+
+    private static final Logger LOG = Logger.getLogger(ConexionesReplica.class.getName());
+
+    private final String jndi;
+
+    private volatile DataSource replica;
+
+    // Se registra solo el cambio de estado, no cada lectura desviada al principal
+    private volatile boolean disponible = true;
+
+    public ConexionesReplica() {
+        String nombre = null;
+        try {
+            nombre = ConfigProvider.getConfig().getOptionalValue("mascotas.replica.jndi", String.class).orElse(null);
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "No se pudo leer la configuración de la réplica; se lee del principal", e);
+        }
+        jndi = nombre;
+        LOG.info(jndi != null ? "Lecturas enrutadas a la réplica " + jndi : "Sin réplica de lectura configurada");
+    }
+
+    @Override
+    protected Connection conexionReal() throws SQLException {
+        if (jndi != null && ModoLectura.permiteReplica()) {
+            try {
+                Connection conexion = replica().getConnection();
+                if (!disponible) {
+                    disponible = true;
+                    LOG.info("Réplica de lectura disponible de nuevo");
+                }
+                ModoLectura.registrarReplica();
+                return conexion;
+            } catch (NamingException | SQLException e) {
+                if (disponible) {
+                    disponible = false;
+                    LOG.log(Level.WARNING, "Réplica de lectura no disponible; se lee del principal", e);
+                }
+            }
+        }
+        return super.conexionReal();
+    }
+
+    private DataSource replica() throws NamingException {
+        DataSource dataSource = replica;
+        if (dataSource == null) {
+            dataSource = (DataSource) new InitialContext().lookup(jndi);
+            replica = dataSource;
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,16 @@
+package control;
+
+import jakarta.ejb.ApplicationException;
+
+/**
+ * La operación choca con el estado actual de los datos (por ejemplo, un turno ya reservado).
+ * Se declara como excepción de aplicación para que el contenedor EJB la propague
+ * sin envolverla en EJBException y el recurso REST pueda responder 409.
+ */
+@ApplicationException(rollback = true)
+public class ConflictoException extends RuntimeException {
+
+    public ConflictoException(String message) {
+        super(message);
+    }
+}
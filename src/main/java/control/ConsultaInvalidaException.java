@@ -0,0 +1,20 @@
+package control;
+
+import jakarta.ejb.ApplicationException;
+
+/**
+ * Parámetros de consulta inválidos enviados por el cliente (cursor, orden, filtros...).
+ * Se declara como excepción de aplicación para que el contenedor EJB la propague
+ * sin envolverla en EJBException y el recurso REST pueda responder 400.
+ */
+@ApplicationException(rollback = true)
+public class ConsultaInvalidaException extends IllegalArgumentException {
+
+    public ConsultaInvalidaException(String message) {
+        super(message);
+    }
+
+    public ConsultaInvalidaException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,19 @@
+package control;
+
+import lombok.Getter;
+
+/**
+ * Total de registros de una tabla junto con la forma en que se obtuvo.
+ */
+@Getter
+public class Conteo {
+
+    private final long total;
+
+    private final EstrategiaConteo tipo;
+
+    public Conteo(long total, EstrategiaConteo tipo) {
+        this.total = total;
+        this.tipo = tipo;
+    }
+}
@@ -0,0 +1,42 @@
+package control;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conteos exactos por entidad compartidos entre todas las instancias del pool de DAOs.
+ * Los DAOs invalidan la entrada al crear o eliminar; el TTL acota el desfase frente
+ * a escrituras hechas fuera de la aplicación o transacciones que se revierten.
+ */
+final class ConteoCache {
+
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private static final Map<Class<?>, Entrada> CONTEOS = new ConcurrentHashMap<>();
+
+    private record Entrada(long total, long expiraEn) {
+    }
+
+    private ConteoCache() {
+    }
+
+    /**
+     * @return el conteo guardado, o null si no hay uno vigente.
+     */
+    static Long obtener(Class<?> tipo) {
+        Entrada entrada = CONTEOS.get(tipo);
+        if (entrada == null || System.nanoTime() - entrada.expiraEn() > 0) {
+            return null;
+        }
+        return entrada.total();
+    }
+
+    static void guardar(Class<?> tipo, long total) {
+        CONTEOS.put(tipo, new Entrada(total, System.nanoTime() + TTL_NANOS));
+    }
+
+    static void invalidar(Class<?> tipo) {
+        CONTEOS.remove(tipo);
+    }
+}
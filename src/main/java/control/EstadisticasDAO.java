@@ -0,0 +1,51 @@
+package control;
+
+import jakarta.ejb.LocalBean;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expone las estadísticas de Hibernate (hibernate.generate_statistics) de la unidad JPA.
+ */
+@Stateless
+@LocalBean
+public class EstadisticasDAO {
+
+    @PersistenceUnit(unitName = "JPA")
+    private EntityManagerFactory emf;
+
+    public Statistics getStatistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Aciertos, fallos y tamaño de cada región de la caché de segundo nivel.
+     */
+    public List<Map<String, Object>> estadisticasCache() {
+        Statistics statistics = getStatistics();
+        List<Map<String, Object>> regiones = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+            long consultas = stats.getHitCount() + stats.getMissCount();
+
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("region", region);
+            fila.put("aciertos", stats.getHitCount());
+            fila.put("fallos", stats.getMissCount());
+            fila.put("escrituras", stats.getPutCount());
+            fila.put("tasaAciertos", consultas == 0 ? 0.0 : (double) stats.getHitCount() / consultas);
+            fila.put("elementosEnMemoria", stats.getElementCountInMemory());
+            regiones.add(fila);
+        }
+        return regiones;
+    }
+}
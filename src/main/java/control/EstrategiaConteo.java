@@ -0,0 +1,29 @@
+package control;
+
+/**
+ * Forma en que un DAO obtiene el total de registros para la paginación.
+ */
+public enum EstrategiaConteo {
+
+    /** SELECT COUNT(*) en cada petición. */
+    EXACTO("exact"),
+
+    /** Conteo exacto guardado en memoria; se invalida con create/delete o al vencer el TTL. */
+    CACHE("cached"),
+
+    /** Estimación de las estadísticas del planificador de PostgreSQL (pg_class.reltuples). */
+    ESTIMADO("estimated");
+
+    private final String valorHeader;
+
+    EstrategiaConteo(String valorHeader) {
+        this.valorHeader = valorHeader;
+    }
+
+    /**
+     * Valor que se envía en el header Total-Records-Type.
+     */
+    public String getValorHeader() {
+        return valorHeader;
+    }
+}
@@ -0,0 +1,138 @@
+package control;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Filtro y orden de un listado, leídos de los parámetros de consulta:
+ * <pre>
+ *   ?filtro=veterinario:eq:2&amp;filtro=fecha:ge:2025-08-01&amp;filtro=estado:in:pendiente|realizada&amp;orden=fecha,-hora
+ * </pre>
+ * Cada filtro es campo:operador:valor (el valor puede contener ':'). Los campos se validan
+ * contra la lista permitida del DAO (getCamposFiltrables()) al compilar la consulta.
+ */
+@Getter
+public class Filtro {
+
+    /**
+     * Operadores admitidos.
+     */
+    public enum Operador {
+        EQ, NE, LT, LE, GT, GE,
+        /** Valores separados por '|'. */
+        IN,
+        /** Prefijo de texto (LIKE 'valor%'). */
+        EMPIEZA,
+        /** "true" para IS NULL, "false" para IS NOT NULL. */
+        NULO
+    }
+
+    public record Condicion(String campo, Operador operador, List<String> valores) {
+    }
+
+    public record Orden(String campo, boolean descendente) {
+    }
+
+    /**
+     * Sin condiciones ni orden: todas las filas, ordenadas por ID.
+     */
+    public static final Filtro NINGUNO = new Filtro(List.of(), List.of());
+
+    private static final int MAX_CONDICIONES = 10;
+
+    // Como en findByIds: una lista IN mayor no reaprovecha la sentencia preparada (padding a 512)
+    private static final int MAX_VALORES_IN = 500;
+
+    private final List<Condicion> condiciones;
+
+    private final List<Orden> orden;
+
+    private Filtro(List<Condicion> condiciones, List<Orden> orden) {
+        this.condiciones = condiciones;
+        this.orden = orden;
+    }
+
+    /**
+     * @param filtros valores del parámetro "filtro" (puede repetirse), o null.
+     * @param orden   campos separados por coma; '-' delante ordena descendente. Puede ser null.
+     * @return el filtro, o null si no se pidió ni filtro ni orden.
+     * @throws ConsultaInvalidaException si la sintaxis no es válida.
+     */
+    public static Filtro parse(List<String> filtros, String orden) {
+        boolean sinFiltros = filtros == null || filtros.isEmpty();
+        boolean sinOrden = orden == null || orden.isBlank();
+        if (sinFiltros && sinOrden) {
+            return null;
+        }
+        if (!sinFiltros && filtros.size() > MAX_CONDICIONES) {
+            throw new ConsultaInvalidaException("Se admiten hasta " + MAX_CONDICIONES + " filtros.");
+        }
+
+        List<Condicion> condiciones = new ArrayList<>();
+        if (!sinFiltros) {
+            for (String filtro : filtros) {
+                String[] partes = filtro.split(":", 3);
+                if (partes.length != 3 || partes[0].isBlank()) {
+                    throw new ConsultaInvalidaException("Filtro no válido (campo:operador:valor): " + filtro);
+                }
+                Operador operador;
+                try {
+                    operador = Operador.valueOf(partes[1].toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new ConsultaInvalidaException("Operador desconocido: " + partes[1]);
+                }
+                List<String> valores = operador == Operador.IN
+                        ? Arrays.asList(partes[2].split("\\|"))
+                        : List.of(partes[2]);
+                if (valores.size() > MAX_VALORES_IN) {
+                    throw new ConsultaInvalidaException("El operador in admite hasta " + MAX_VALORES_IN + " valores.");
+                }
+                if (operador == Operador.NULO && !partes[2].equals("true") && !partes[2].equals("false")) {
+                    throw new ConsultaInvalidaException("El operador nulo admite true o false: " + filtro);
+                }
+                condiciones.add(new Condicion(partes[0], operador, valores));
+            }
+        }
+
+        List<Orden> ordenes = new ArrayList<>();
+        if (!sinOrden) {
+            for (String campo : orden.split(",")) {
+                String limpio = campo.trim();
+                boolean descendente = limpio.startsWith("-");
+                if (descendente) {
+                    limpio = limpio.substring(1);
+                }
+                if (limpio.isEmpty()) {
+                    throw new ConsultaInvalidaException("Orden no válido: " + orden);
+                }
+                ordenes.add(new Orden(limpio, descendente));
+            }
+        }
+        return new Filtro(List.copyOf(condiciones), List.copyOf(ordenes));
+    }
+
+    /**
+     * Forma del filtro sin los valores: campos, operadores y orden. Dos filtros con la misma
+     * forma se resuelven con la misma consulta compilada y solo cambian los parámetros.
+     * El valor de NULO sí forma parte de la forma porque cambia el SQL.
+     */
+    public String forma() {
+        StringBuilder sb = new StringBuilder();
+        for (Condicion condicion : condiciones) {
+            sb.append(condicion.campo()).append(':').append(condicion.operador());
+            if (condicion.operador() == Operador.NULO) {
+                sb.append(':').append(condicion.valores().get(0));
+            }
+            sb.append(';');
+        }
+        sb.append('|');
+        for (Orden o : orden) {
+            sb.append(o.descendente() ? "-" : "").append(o.campo()).append(',');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package control;
+
+import entity.HistorialMedico;
+import jakarta.ejb.LocalBean;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.Map;
+
+@Stateless
+@LocalBean
+public class HistorialMedicoDAO extends AbstractDataPersistence<HistorialMedico> {
+
+    @PersistenceContext(unitName = "JPA")
+    private EntityManager em;
+
+    public HistorialMedicoDAO() {
+        super(HistorialMedico.class);
+    }
+
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    @Override
+    protected Map<String, String> getCamposFiltrables() {
+        return Map.of("fecha", "fecha", "mascota", "idMascota.id", "veterinario", "idVeterinario.id");
+    }
+
+    @Override
+    protected String columnaBusqueda() {
+        return "busqueda"; // tsvector de diagnóstico, tratamiento y observaciones con índice GIN (sql/base.sql)
+    }
+
+    @Override
+    protected EstrategiaConteo getEstrategiaConteo() {
+        return EstrategiaConteo.ESTIMADO; // crece durante años con cada consulta
+    }
+}
@@ -0,0 +1,314 @@
+package control;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de prefijos en memoria para autocompletar nombres de mascotas y propietarios (y el DUI).
+ * Cada palabra normalizada (minúsculas, sin tildes) apunta a un int[] ordenado de IDs, en un
+ * ConcurrentSkipListMap que se recorre por rango de prefijo sin bloquear las lecturas.
+ * Se carga al iniciar y se actualiza por fila cuando confirma la transacción que la modificó.
+ * Las recargas completas (tras un alta en lote o un borrado en cascada) corren en segundo plano
+ * y mientras tanto se sigue respondiendo con el índice anterior: las consultas nunca van a la base.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class IndiceNombres {
+
+    private static final Logger LOG = Logger.getLogger(IndiceNombres.class.getName());
+
+    public static final String MASCOTA = "mascota";
+
+    public static final String PROPIETARIO = "propietario";
+
+    public static final int MAX_SUGERENCIAS = 50;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARADORES_INTERNOS = Pattern.compile("[-.]");
+
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final long REINTENTO_SEGUNDOS = 30;
+
+    /**
+     * Una sugerencia: el tipo de entidad, su ID y el texto a mostrar.
+     */
+    public record Sugerencia(String tipo, Integer id, String texto) {
+    }
+
+    private record Entrada(String texto, String[] palabras) {
+    }
+
+    private record Cambio(Integer id, String texto) {
+    }
+
+    private static final class Indice {
+        final ConcurrentSkipListMap<String, int[]> palabras = new ConcurrentSkipListMap<>();
+        final ConcurrentHashMap<Integer, Entrada> entradas = new ConcurrentHashMap<>();
+
+        synchronized void poner(Integer id, String texto) {
+            quitar(id);
+            Entrada entrada = new Entrada(texto, palabras(texto));
+            entradas.put(id, entrada);
+            for (String palabra : entrada.palabras()) {
+                palabras.compute(palabra, (clave, ids) -> agregar(ids, id));
+            }
+        }
+
+        void aplicar(Cambio cambio) {
+            if (cambio.texto() == null) {
+                quitar(cambio.id());
+            } else {
+                poner(cambio.id(), cambio.texto());
+            }
+        }
+
+        synchronized void quitar(Integer id) {
+            Entrada anterior = entradas.remove(id);
+            if (anterior != null) {
+                for (String palabra : anterior.palabras()) {
+                    palabras.computeIfPresent(palabra, (clave, ids) -> sacar(ids, id));
+                }
+            }
+        }
+    }
+
+    @Inject
+    private MascotaDAO mascotaDAO;
+
+    @Inject
+    private PropietarioDAO propietarioDAO;
+
+    @Resource
+    private TransactionSynchronizationRegistry transacciones;
+
+    @Resource
+    private ManagedScheduledExecutorService programador;
+
+    private final Map<String, Indice> indices = new ConcurrentHashMap<>();
+
+    // Tipos con una recarga completa programada y todavía no iniciada
+    private final Set<String> desactualizados = ConcurrentHashMap.newKeySet();
+
+    // Una recarga a la vez; las actualizaciones por fila no esperan a que termine
+    private final ReentrantLock recargas = new ReentrantLock();
+
+    // Actualizaciones por fila confirmadas durante la recarga de un tipo, para repetirlas en el
+    // índice nuevo antes de publicarlo. Se usa con el candado de this.
+    private final Map<String, List<Cambio>> cambiosDuranteRecarga = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        indices.put(MASCOTA, new Indice());
+        indices.put(PROPIETARIO, new Indice());
+        for (String tipo : List.of(MASCOTA, PROPIETARIO)) {
+            try {
+                cargar(tipo);
+            } catch (RuntimeException e) {
+                // Sin base al arrancar no se impide el despliegue: se reintenta en segundo plano
+                LOG.log(Level.WARNING, "No se pudo cargar el índice de autocompletado de " + tipo
+                        + "; se reintenta en " + REINTENTO_SEGUNDOS + " s", e);
+                programarRecarga(tipo, REINTENTO_SEGUNDOS);
+            }
+        }
+    }
+
+    /**
+     * Sugerencias cuyas palabras empiezan por cada palabra de la consulta, en cualquier orden
+     * ("ram jo" encuentra "José Ramírez"). No consulta la base.
+     * @param tipo MASCOTA, PROPIETARIO o null para ambos (primero mascotas).
+     */
+    public List<Sugerencia> sugerir(String consulta, String tipo, int limite) {
+        String[] buscadas = palabras(consulta);
+        if (buscadas.length == 0 || limite <= 0) {
+            return List.of();
+        }
+        limite = Math.min(limite, MAX_SUGERENCIAS);
+
+        // La palabra más larga es la más selectiva: se recorre su rango y se filtra por las demás
+        String guia = buscadas[0];
+        for (String palabra : buscadas) {
+            if (palabra.length() > guia.length()) {
+                guia = palabra;
+            }
+        }
+
+        List<Sugerencia> sugerencias = new ArrayList<>(limite);
+        for (String t : tipo != null ? List.of(tipo) : List.of(MASCOTA, PROPIETARIO)) {
+            Indice indice = indices.get(t);
+            Set<Integer> vistos = new HashSet<>();
+            for (int[] ids : indice.palabras.subMap(guia, true, guia + Character.MAX_VALUE, false).values()) {
+                for (int id : ids) {
+                    Entrada entrada = indice.entradas.get(id);
+                    if (entrada == null || !vistos.add(id) || !coincide(entrada.palabras(), buscadas)) {
+                        continue;
+                    }
+                    sugerencias.add(new Sugerencia(t, id, entrada.texto()));
+                    if (sugerencias.size() == limite) {
+                        return sugerencias;
+                    }
+                }
+            }
+        }
+        return sugerencias;
+    }
+
+    /**
+     * Pone (o quita, si texto es null) una fila del índice cuando confirma la transacción actual.
+     * Fuera de una transacción se aplica de inmediato.
+     */
+    public void actualizarAlConfirmar(String tipo, Integer id, String texto) {
+        Transacciones.alConfirmar(transacciones, () -> aplicar(tipo, new Cambio(id, texto)));
+    }
+
+    /**
+     * Programa una recarga completa del tipo en segundo plano, si la transacción confirma.
+     */
+    public void recargarAlConfirmar(String tipo) {
+        Transacciones.alConfirmar(transacciones, () -> programarRecarga(tipo, 0));
+    }
+
+    private synchronized void aplicar(String tipo, Cambio cambio) {
+        indices.get(tipo).aplicar(cambio);
+        List<Cambio> durante = cambiosDuranteRecarga.get(tipo);
+        if (durante != null) {
+            durante.add(cambio);
+        }
+    }
+
+    private void programarRecarga(String tipo, long demoraSegundos) {
+        if (desactualizados.add(tipo)) {
+            programador.schedule(() -> recargar(tipo), demoraSegundos, TimeUnit.SECONDS);
+        }
+    }
+
+    private void recargar(String tipo) {
+        desactualizados.remove(tipo);
+        try {
+            cargar(tipo);
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "No se pudo recargar el índice de autocompletado de " + tipo
+                    + "; se reintenta en " + REINTENTO_SEGUNDOS + " s", e);
+            programarRecarga(tipo, REINTENTO_SEGUNDOS);
+        }
+    }
+
+    /**
+     * Lee el tipo completo y reemplaza su índice. Las actualizaciones por fila que confirman
+     * mientras tanto van al índice en uso y se repiten en el nuevo antes de publicarlo, así que
+     * ninguna se pierde aunque la lectura no la haya visto.
+     */
+    private void cargar(String tipo) {
+        recargas.lock();
+        try {
+            synchronized (this) {
+                cambiosDuranteRecarga.put(tipo, new ArrayList<>());
+            }
+            Map<Integer, String> textos = null;
+            Indice indice = new Indice();
+            try {
+                textos = MASCOTA.equals(tipo) ? mascotaDAO.nombres() : propietarioDAO.nombres();
+                textos.forEach(indice::poner);
+            } finally {
+                synchronized (this) {
+                    List<Cambio> durante = cambiosDuranteRecarga.remove(tipo);
+                    if (textos != null) {
+                        durante.forEach(indice::aplicar);
+                        indices.put(tipo, indice);
+                    }
+                }
+            }
+            LOG.info("Índice de autocompletado de " + tipo + ": " + textos.size() + " filas, "
+                    + indice.palabras.size() + " palabras");
+        } finally {
+            recargas.unlock();
+        }
+    }
+
+    private static boolean coincide(String[] palabras, String[] buscadas) {
+        for (String buscada : buscadas) {
+            boolean encontrada = false;
+            for (String palabra : palabras) {
+                if (palabra.startsWith(buscada)) {
+                    encontrada = true;
+                    break;
+                }
+            }
+            if (!encontrada) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Palabras normalizadas: minúsculas, sin tildes; guiones y puntos se eliminan ("01234567-8" → "012345678").
+     */
+    static String[] palabras(String texto) {
+        if (texto == null) {
+            return new String[0];
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        normalizado = SEPARADORES_INTERNOS.matcher(normalizado.toLowerCase(Locale.ROOT)).replaceAll("");
+        return Arrays.stream(NO_ALFANUMERICO.split(normalizado))
+                .filter(palabra -> !palabra.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private static int[] agregar(int[] ids, int id) {
+        if (ids == null) {
+            return new int[]{id};
+        }
+        int posicion = Arrays.binarySearch(ids, id);
+        if (posicion >= 0) {
+            return ids;
+        }
+        posicion = -posicion - 1;
+        int[] nuevos = new int[ids.length + 1];
+        System.arraycopy(ids, 0, nuevos, 0, posicion);
+        nuevos[posicion] = id;
+        System.arraycopy(ids, posicion, nuevos, posicion + 1, ids.length - posicion);
+        return nuevos;
+    }
+
+    private static int[] sacar(int[] ids, int id) {
+        int posicion = Arrays.binarySearch(ids, id);
+        if (posicion < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null; // computeIfPresent elimina la palabra
+        }
+        int[] nuevos = new int[ids.length - 1];
+        System.arraycopy(ids, 0, nuevos, 0, posicion);
+        System.arraycopy(ids, posicion + 1, nuevos, posicion, ids.length - posicion - 1);
+        return nuevos;
+    }
+}
@@ -0,0 +1,31 @@
+package control;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Marca de cambios por tabla: un número que aumenta con cada escritura hecha por los DAOs.
+ * Permite construir ETag de listados sin consultar la base.
+ * Parte de la hora de arranque para que un reinicio no repita marcas ya entregadas.
+ * Es local a cada instancia del servidor y no ve escrituras hechas fuera de la aplicación.
+ * Los DAOs la avanzan al escribir y otra vez al terminar la transacción, para que un ETag
+ * tomado antes del commit no quede asociado a los datos confirmados.
+ */
+public final class MarcaCambios {
+
+    private static final long INICIO = System.currentTimeMillis();
+
+    private static final Map<Class<?>, AtomicLong> MARCAS = new ConcurrentHashMap<>();
+
+    private MarcaCambios() {
+    }
+
+    public static long valor(Class<?> tipo) {
+        return MARCAS.computeIfAbsent(tipo, t -> new AtomicLong(INICIO)).get();
+    }
+
+    static void marcar(Class<?> tipo) {
+        MARCAS.computeIfAbsent(tipo, t -> new AtomicLong(INICIO)).incrementAndGet();
+    }
+}
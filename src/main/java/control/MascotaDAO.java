@@ -1,19 +1,43 @@
 package control;
 
 
+import entity.Cita;
+import entity.HistorialMedico;
 import entity.Mascota;
+import entity.RecordatorioVacuna;
+import entity.Vacuna;
 import jakarta.ejb.LocalBean;
 import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Hibernate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 @Stateless
 @LocalBean
 public class MascotaDAO extends AbstractDataPersistence<Mascota> {
 
+    public static final String GRAFO_LISTA = "Mascota.lista";
+
+    public static final String GRAFO_DETALLE = "Mascota.detalle";
+
     @PersistenceContext(unitName = "JPA")
     private EntityManager em;
 
+    @Inject
+    private IndiceNombres indiceNombres;
+
+    @Inject
+    private AgendaVeterinarios agenda;
+
     public MascotaDAO() {
         super(Mascota.class);
     }
@@ -23,6 +47,95 @@ public class MascotaDAO extends AbstractDataPersistence<Mascota> {
         return em;
     }
 
+    @Override
+    protected Set<String> getColumnasOrdenables() {
+        return Set.of("nombre"); // índice en sql/base.sql
+    }
+
+    @Override
+    protected Map<String, String> getCamposFiltrables() {
+        return Map.of("nombre", "nombre", "especie", "especie", "raza", "raza", "sexo", "sexo",
+                "edad", "edad", "propietario", "idPropietario.id");
+    }
+
+    @Override
+    protected String columnaBusqueda() {
+        return "busqueda"; // tsvector de observaciones con índice GIN (sql/base.sql)
+    }
+
+    /**
+     * El grafo "Mascota.detalle" une solo las citas; vacunas e historial se cargan aquí
+     * con una consulta por colección, y los veterinarios de las vacunas en lotes
+     * (hibernate.default_batch_fetch_size), sin importar cuántas filas tenga la mascota.
+     */
+    @Override
+    protected void completarGrafo(Mascota mascota, String grafo) {
+        if (GRAFO_DETALLE.equals(grafo)) {
+            Hibernate.initialize(mascota.getVacunas());
+            for (Vacuna vacuna : mascota.getVacunas()) {
+                Hibernate.initialize(vacuna.getIdVeterinario());
+            }
+            Hibernate.initialize(mascota.getHistorialMedico());
+        }
+    }
+
+    @Override
+    public void create(Mascota mascota) {
+        super.create(mascota);
+        indiceNombres.actualizarAlConfirmar(IndiceNombres.MASCOTA, mascota.getId(), mascota.getNombre());
+    }
+
+    @Override
+    protected void despuesDeModificar(Object id, Set<String> atributos) {
+        if (atributos != null && !atributos.contains("nombre")) {
+            return;
+        }
+        if (id == null) {
+            indiceNombres.recargarAlConfirmar(IndiceNombres.MASCOTA);
+        } else {
+            // Se relee el nombre dentro de la transacción; null si la mascota se borró
+            indiceNombres.actualizarAlConfirmar(IndiceNombres.MASCOTA, (Integer) id, nombre((Integer) id));
+        }
+    }
+
+    /**
+     * La base borra en cascada las citas, vacunas (con sus recordatorios) e historial de la
+     * mascota; los turnos de esas citas quedan libres en la agenda.
+     */
+    @Override
+    protected void despuesDeBorrar(Object id) {
+        registrarCambio(Cita.class);
+        registrarCambio(Vacuna.class);
+        registrarCambio(RecordatorioVacuna.class);
+        registrarCambio(HistorialMedico.class);
+        agenda.invalidar();
+    }
 
+    /**
+     * ID y nombre de todas las mascotas (solo esas dos columnas), para el índice de autocompletado.
+     */
+    public Map<Integer, String> nombres() {
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+            Root<Mascota> root = cq.from(Mascota.class);
+            cq.multiselect(root.get("id"), root.get("nombre"));
 
+            Map<Integer, String> nombres = new HashMap<>();
+            for (Tuple fila : em.createQuery(cq).getResultList()) {
+                nombres.put(fila.get(0, Integer.class), fila.get(1, String.class));
+            }
+            return nombres;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al leer los nombres de las mascotas.", ex);
+        }
+    }
+
+    private String nombre(Integer id) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<String> cq = cb.createQuery(String.class);
+        Root<Mascota> root = cq.from(Mascota.class);
+        cq.select(root.get("nombre")).where(cb.equal(root.get("id"), id));
+        return em.createQuery(cq).getResultStream().findFirst().orElse(null);
+    }
 }
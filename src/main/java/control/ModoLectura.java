@@ -0,0 +1,74 @@
+package control;
+
+import java.util.function.Supplier;
+
+/**
+ * Marca el hilo actual como de solo lectura mientras se ejecuta una tarea. Las transacciones
+ * que los DAOs abren dentro de ella no guardan snapshots para el dirty checking, no hacen
+ * flush y son READ ONLY en PostgreSQL (ver AbstractDataPersistence.requireEntityManager);
+ * si la tarea lo permite, además leen de la réplica (ver ConexionesReplica).
+ * Solo debe usarse donde cada llamada al DAO abre su propia transacción: una transacción
+ * exterior que luego escriba fallaría.
+ */
+public final class ModoLectura {
+
+    private static final class Estado {
+        final boolean replica;
+        boolean leyoDeReplica;
+
+        Estado(boolean replica) {
+            this.replica = replica;
+        }
+    }
+
+    private static final ThreadLocal<Estado> ESTADO = new ThreadLocal<>();
+
+    private ModoLectura() {
+    }
+
+    public static <R> R ejecutar(Supplier<R> tarea) {
+        return ejecutar(tarea, true);
+    }
+
+    /**
+     * @param replica false obliga a leer del principal (lectura de las propias escrituras).
+     */
+    public static <R> R ejecutar(Supplier<R> tarea, boolean replica) {
+        Estado anterior = ESTADO.get();
+        ESTADO.set(new Estado(replica));
+        try {
+            return tarea.get();
+        } finally {
+            if (anterior == null) {
+                ESTADO.remove();
+            } else {
+                ESTADO.set(anterior);
+            }
+        }
+    }
+
+    static boolean activo() {
+        return ESTADO.get() != null;
+    }
+
+    static boolean permiteReplica() {
+        Estado estado = ESTADO.get();
+        return estado != null && estado.replica;
+    }
+
+    static void registrarReplica() {
+        Estado estado = ESTADO.get();
+        if (estado != null) {
+            estado.leyoDeReplica = true;
+        }
+    }
+
+    /**
+     * Indica si alguna lectura de la tarea en curso vino de la réplica, que puede ir atrasada:
+     * lo leído no debe guardarse en cachés que solo se invalidan al escribir.
+     */
+    public static boolean leyoDeReplica() {
+        Estado estado = ESTADO.get();
+        return estado != null && estado.leyoDeReplica;
+    }
+}
@@ -0,0 +1,25 @@
+package control;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Resultado de una consulta paginada por cursor.
+ * @param <T> Tipo de entidad contenida.
+ */
+@Getter
+public class Pagina<T> {
+
+    private final List<T> elementos;
+
+    /**
+     * Token opaco para pedir la página siguiente, o null si ésta es la última.
+     */
+    private final String siguienteCursor;
+
+    public Pagina(List<T> elementos, String siguienteCursor) {
+        this.elementos = elementos;
+        this.siguienteCursor = siguienteCursor;
+    }
+}
@@ -0,0 +1,121 @@
+package control;
+
+import entity.Cita;
+import entity.HistorialMedico;
+import entity.Mascota;
+import entity.Propietario;
+import entity.RecordatorioVacuna;
+import entity.Vacuna;
+import jakarta.ejb.LocalBean;
+import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Stateless
+@LocalBean
+public class PropietarioDAO extends AbstractDataPersistence<Propietario> {
+
+    // Atributos que forman el texto del índice de autocompletado
+    private static final Set<String> ATRIBUTOS_NOMBRE = Set.of("nombre", "dui");
+
+    @PersistenceContext(unitName = "JPA")
+    private EntityManager em;
+
+    @Inject
+    private IndiceNombres indiceNombres;
+
+    @Inject
+    private AgendaVeterinarios agenda;
+
+    public PropietarioDAO() {
+        super(Propietario.class);
+    }
+
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    @Override
+    public void create(Propietario propietario) {
+        super.create(propietario);
+        indiceNombres.actualizarAlConfirmar(IndiceNombres.PROPIETARIO, propietario.getId(),
+                texto(propietario.getNombre(), propietario.getDui()));
+    }
+
+    @Override
+    protected void despuesDeModificar(Object id, Set<String> atributos) {
+        if (atributos != null && atributos.stream().noneMatch(ATRIBUTOS_NOMBRE::contains)) {
+            return;
+        }
+        if (id == null) {
+            indiceNombres.recargarAlConfirmar(IndiceNombres.PROPIETARIO);
+        } else {
+            // Se relee dentro de la transacción; null si el propietario se borró
+            List<Tuple> filas = consultarNombres((Integer) id);
+            indiceNombres.actualizarAlConfirmar(IndiceNombres.PROPIETARIO, (Integer) id,
+                    filas.isEmpty() ? null : texto(filas.get(0).get(1, String.class), filas.get(0).get(2, String.class)));
+        }
+    }
+
+    /**
+     * La base borra en cascada las mascotas del propietario y, con ellas, sus citas, vacunas,
+     * recordatorios e historial. Las mascotas se descartan también de la caché de segundo
+     * nivel y del índice de nombres, que no ven el borrado en cascada.
+     */
+    @Override
+    protected void despuesDeBorrar(Object id) {
+        registrarCambio(Mascota.class);
+        registrarCambio(Cita.class);
+        registrarCambio(Vacuna.class);
+        registrarCambio(RecordatorioVacuna.class);
+        registrarCambio(HistorialMedico.class);
+        // También al terminar, por si una lectura concurrente volvió a guardar una mascota borrada
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Mascota.class);
+        alTerminarTransaccion(() -> cache.evict(Mascota.class));
+        indiceNombres.recargarAlConfirmar(IndiceNombres.MASCOTA);
+        agenda.invalidar();
+    }
+
+    /**
+     * ID y "nombre (DUI)" de todos los propietarios, para el índice de autocompletado.
+     */
+    public Map<Integer, String> nombres() {
+        try {
+            Map<Integer, String> nombres = new HashMap<>();
+            for (Tuple fila : consultarNombres(null)) {
+                nombres.put(fila.get(0, Integer.class), texto(fila.get(1, String.class), fila.get(2, String.class)));
+            }
+            return nombres;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al leer los nombres de los propietarios.", ex);
+        }
+    }
+
+    private List<Tuple> consultarNombres(Integer id) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Propietario> root = cq.from(Propietario.class);
+        cq.multiselect(root.get("id"), root.get("nombre"), root.get("dui"));
+        if (id != null) {
+            cq.where(cb.equal(root.get("id"), id));
+        }
+        return em.createQuery(cq).getResultList();
+    }
+
+    private static String texto(String nombre, String dui) {
+        return dui != null ? nombre + " (" + dui + ")" : nombre;
+    }
+}
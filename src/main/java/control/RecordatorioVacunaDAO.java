@@ -0,0 +1,92 @@
+package control;
+
+import entity.Propietario;
+import entity.RecordatorioVacuna;
+import entity.Vacuna;
+import jakarta.ejb.LocalBean;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Stateless
+@LocalBean
+public class RecordatorioVacunaDAO extends AbstractDataPersistence<RecordatorioVacuna> {
+
+    public static final String ESTADO_PENDIENTE = "pendiente";
+
+    @PersistenceContext(unitName = "JPA")
+    private EntityManager em;
+
+    public RecordatorioVacunaDAO() {
+        super(RecordatorioVacuna.class);
+    }
+
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Crea los recordatorios que aún no existen para las vacunas indicadas, con una consulta
+     * para descartar los ya generados y los INSERT en lotes. Volver a procesar un chunk
+     * (por ejemplo, al reiniciar el job) no duplica recordatorios.
+     * @return cantidad de recordatorios creados.
+     */
+    public int registrar(List<VacunaPorVencer> vacunas, LocalDate fechaGeneracion) {
+        if (vacunas == null || vacunas.isEmpty()) {
+            return 0;
+        }
+
+        List<RecordatorioVacuna> nuevos = new ArrayList<>(vacunas.size());
+        try {
+            Set<VacunaPorVencer> existentes = existentes(vacunas);
+            for (VacunaPorVencer vacuna : vacunas) {
+                if (existentes.contains(new VacunaPorVencer(vacuna.idVacuna(), vacuna.proximaDosis(), null))) {
+                    continue;
+                }
+                RecordatorioVacuna recordatorio = new RecordatorioVacuna();
+                recordatorio.setIdVacuna(em.getReference(Vacuna.class, vacuna.idVacuna()));
+                recordatorio.setIdPropietario(em.getReference(Propietario.class, vacuna.idPropietario()));
+                recordatorio.setProximaDosis(vacuna.proximaDosis());
+                recordatorio.setFechaGeneracion(fechaGeneracion);
+                recordatorio.setEstado(ESTADO_PENDIENTE);
+                nuevos.add(recordatorio);
+            }
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al preparar los recordatorios de vacunas.", ex);
+        }
+        if (!nuevos.isEmpty()) {
+            createAll(nuevos);
+        }
+        return nuevos.size();
+    }
+
+    /**
+     * Pares (vacuna, próxima dosis) que ya tienen recordatorio; el propietario se deja en null.
+     */
+    private Set<VacunaPorVencer> existentes(List<VacunaPorVencer> vacunas) {
+        List<Integer> ids = vacunas.stream().map(VacunaPorVencer::idVacuna).toList();
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<RecordatorioVacuna> root = cq.from(RecordatorioVacuna.class);
+        cq.multiselect(root.get("idVacuna").get("id"), root.get("proximaDosis"))
+                .where(root.get("idVacuna").get("id").in(ids));
+
+        Set<VacunaPorVencer> existentes = new HashSet<>();
+        for (Tuple fila : em.createQuery(cq).getResultList()) {
+            existentes.add(new VacunaPorVencer(fila.get(0, Integer.class), fila.get(1, LocalDate.class), null));
+        }
+        return existentes;
+    }
+}
@@ -0,0 +1,53 @@
+package control;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Acciones diferidas al final de la transacción JTA actual (cachés e índices en memoria que
+ * deben reflejar lo confirmado). Se registran como sincronizaciones interpuestas: corren
+ * después de las de JPA, con la transacción ya confirmada o revertida.
+ */
+public final class Transacciones {
+
+    private Transacciones() {
+    }
+
+    /**
+     * Ejecuta la acción al terminar la transacción actual, con su estado final (jakarta.transaction.Status).
+     * @param registro registro de sincronizaciones, o null fuera del contenedor.
+     * @return false si no hay transacción activa: la acción no se registra.
+     */
+    public static boolean alTerminar(TransactionSynchronizationRegistry registro, IntConsumer accion) {
+        if (registro == null || registro.getTransactionKey() == null) {
+            return false;
+        }
+        registro.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                accion.accept(status);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Ejecuta la acción cuando la transacción actual se confirma, o en el acto si no hay transacción.
+     */
+    public static void alConfirmar(TransactionSynchronizationRegistry registro, Runnable accion) {
+        if (!alTerminar(registro, status -> {
+            if (status == Status.STATUS_COMMITTED) {
+                accion.run();
+            }
+        })) {
+            accion.run();
+        }
+    }
+}
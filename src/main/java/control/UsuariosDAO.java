@@ -1,13 +1,18 @@
 package control;
 
+import entity.Cita;
+import entity.HistorialMedico;
 import entity.Usuario;
+import entity.Vacuna;
 import jakarta.ejb.LocalBean;
 import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Set;
 
 
 @Stateless
@@ -17,6 +22,9 @@ public class UsuariosDAO extends AbstractDataPersistence<Usuario> implements Ser
     @PersistenceContext(unitName = "JPA")
     private EntityManager em;
 
+    @Inject
+    private AgendaVeterinarios agenda;
+
     public UsuariosDAO() {
         super(Usuario.class);
     }
@@ -26,6 +34,23 @@ public class UsuariosDAO extends AbstractDataPersistence<Usuario> implements Ser
         return em;
     }
 
+    @Override
+    protected Set<String> getColumnasOrdenables() {
+        return Set.of("nombre"); // índice en sql/base.sql
+    }
+
+    /**
+     * La base deja sin veterinario (ON DELETE SET NULL) sus citas, vacunas e historial;
+     * sus días en la agenda ya no sirven.
+     */
+    @Override
+    protected void despuesDeBorrar(Object id) {
+        registrarCambio(Cita.class);
+        registrarCambio(Vacuna.class);
+        registrarCambio(HistorialMedico.class);
+        agenda.invalidar();
+    }
+
     public Usuario login(String username, String password) {
         try {
             List<Usuario> usuarios = em.createQuery(
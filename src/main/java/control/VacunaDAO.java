@@ -0,0 +1,85 @@
+package control;
+
+import entity.Mascota;
+import entity.RecordatorioVacuna;
+import entity.Vacuna;
+import jakarta.ejb.LocalBean;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Stateless
+@LocalBean
+public class VacunaDAO extends AbstractDataPersistence<Vacuna> {
+
+    @PersistenceContext(unitName = "JPA")
+    private EntityManager em;
+
+    public VacunaDAO() {
+        super(Vacuna.class);
+    }
+
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * La base borra en cascada los recordatorios de la vacuna.
+     */
+    @Override
+    protected void despuesDeBorrar(Object id) {
+        registrarCambio(RecordatorioVacuna.class);
+    }
+
+    /**
+     * Una página de vacunas con próxima dosis entre desde y hasta, en orden (proximaDosis, id)
+     * y a partir de la anterior (keyset). Usa el índice idx_vacunas_proxima_dosis_id.
+     * @param despuesDe  último elemento ya procesado, o null para empezar.
+     * @param particion  resto de id_vacuna módulo particiones que corresponde a esta partición.
+     */
+    public List<VacunaPorVencer> findPorVencer(LocalDate desde, LocalDate hasta, VacunaPorVencer despuesDe,
+                                               int particion, int particiones, int limite) {
+        if (desde == null || hasta == null || limite <= 0 || particiones <= 0) {
+            throw new IllegalArgumentException("Parámetros no válidos para buscar vacunas por vencer.");
+        }
+
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<VacunaPorVencer> cq = cb.createQuery(VacunaPorVencer.class);
+            Root<Vacuna> root = cq.from(Vacuna.class);
+            Join<Vacuna, Mascota> mascota = root.join("idMascota");
+            Path<LocalDate> proximaDosis = root.get("proximaDosis");
+            Path<Integer> id = root.get("id");
+
+            cq.select(cb.construct(VacunaPorVencer.class, id, proximaDosis, mascota.get("idPropietario").get("id")));
+
+            List<Predicate> filtros = new ArrayList<>();
+            filtros.add(cb.between(proximaDosis, desde, hasta));
+            if (despuesDe != null) {
+                filtros.add(cb.or(
+                        cb.greaterThan(proximaDosis, despuesDe.proximaDosis()),
+                        cb.and(cb.equal(proximaDosis, despuesDe.proximaDosis()), cb.greaterThan(id, despuesDe.idVacuna()))));
+            }
+            if (particiones > 1) {
+                filtros.add(cb.equal(cb.mod(id, particiones), particion));
+            }
+            cq.where(filtros.toArray(new Predicate[0]));
+            cq.orderBy(cb.asc(proximaDosis), cb.asc(id));
+
+            return em.createQuery(cq).setMaxResults(limite).getResultList();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error al buscar vacunas por vencer.", ex);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package control;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Proyección de una vacuna con próxima dosis cercana: solo lo necesario para el recordatorio.
+ * Es serializable porque el lector del job la guarda como checkpoint.
+ */
+public record VacunaPorVencer(Integer idVacuna, LocalDate proximaDosis, Integer idPropietario) implements Serializable {
+}
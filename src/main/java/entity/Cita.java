@@ -20,12 +20,22 @@ import java.time.LocalTime;
 @Setter
 @Entity
 @Table(name = "citas")
-public class Cita {
+// Vista de listado y detalle: el veterinario se serializa, la mascota no (back reference)
+@NamedEntityGraph(name = "Cita.lista", attributeNodes = @NamedAttributeNode("idVeterinario"))
+public class Cita implements Versionado {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // SEQUENCE con optimizador pooled: Hibernate reserva bloques de IDs y puede agrupar los INSERT en lotes JDBC.
+    // allocationSize debe coincidir con el INCREMENT BY de la secuencia (ver sql/base.sql).
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "citas_seq")
+    @SequenceGenerator(name = "citas_seq", sequenceName = "citas_id_cita_seq", allocationSize = 50)
     @Column(name = "id_cita", nullable = false)
     private Integer id;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotNull
     @Column(name = "fecha", nullable = false)
     private LocalDate fecha;
@@ -45,7 +55,7 @@ public class Cita {
     @Column(name = "notas", length = Integer.MAX_VALUE)
     private String notas;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "id_mascota")
     @JsonBackReference(value = "mascota-citas") // 👈 IMPORTANTE: debe ser BackReference
@@ -53,7 +63,7 @@ public class Cita {
 
 
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.SET_NULL)
     @JoinColumn(name = "id_veterinario")
     @JsonManagedReference(value = "usuario-citas")
@@ -18,12 +18,17 @@ import java.time.LocalDate;
 @Setter
 @Entity
 @Table(name = "historial_medico")
-public class HistorialMedico {
+public class HistorialMedico implements Versionado {
     @Id
     @Column(name = "id_historial", nullable = false)
     private Integer id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "id_mascota")
     @JsonBackReference("mascota-historiales")
@@ -43,7 +48,7 @@ public class HistorialMedico {
     @Column(name = "observaciones", length = Integer.MAX_VALUE)
     private String observaciones;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.SET_NULL)
     @JoinColumn(name = "id_veterinario")
     @JsonBackReference("usuario-historiales")
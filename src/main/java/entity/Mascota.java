@@ -6,6 +6,8 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
@@ -17,13 +19,30 @@ import java.util.List;
 @Setter
 @Entity
 @Table(name = "mascotas")
-public class Mascota {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "mascotas")
+// Listado: solo columnas propias, sin colecciones
+@NamedEntityGraph(name = "Mascota.lista")
+// Detalle: citas con su veterinario en la misma consulta; vacunas e historial se completan
+// en MascotaDAO (unir varias listas a la vez produce MultipleBagFetchException)
+@NamedEntityGraph(name = "Mascota.detalle",
+        attributeNodes = @NamedAttributeNode(value = "citas", subgraph = "cita"),
+        subgraphs = @NamedSubgraph(name = "cita", attributeNodes = @NamedAttributeNode("idVeterinario")))
+public class Mascota implements Versionado {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // SEQUENCE con optimizador pooled: Hibernate reserva bloques de IDs y puede agrupar los INSERT en lotes JDBC.
+    // allocationSize debe coincidir con el INCREMENT BY de la secuencia (ver sql/base.sql).
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mascotas_seq")
+    @SequenceGenerator(name = "mascotas_seq", sequenceName = "mascotas_id_mascota_seq", allocationSize = 50)
     @Column(name = "id_mascota", nullable = false)
     private Integer id;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Size(max = 100)
     @NotNull
     @Column(name = "nombre", nullable = false, length = 100)
@@ -56,7 +75,7 @@ public class Mascota {
     private String observaciones;
 
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "id_propietario")
     @JsonBackReference("propietario-mascotas")
@@ -0,0 +1,64 @@
+package entity;
+
+import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDate;
+
+/**
+ * Recordatorio para el propietario de una mascota cuya vacuna tiene próxima dosis cercana.
+ * Lo genera el job recordatoriosVacunas; hay uno solo por vacuna y fecha de próxima dosis.
+ */
+@JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
+@Getter
+@Setter
+@Entity
+@Table(name = "recordatorios_vacuna",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"id_vacuna", "proxima_dosis"}))
+public class RecordatorioVacuna implements Versionado {
+    @Id
+    // SEQUENCE con optimizador pooled para que el job inserte en lotes JDBC (ver sql/base.sql)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recordatorios_vacuna_seq")
+    @SequenceGenerator(name = "recordatorios_vacuna_seq", sequenceName = "recordatorios_vacuna_id_recordatorio_seq", allocationSize = 50)
+    @Column(name = "id_recordatorio", nullable = false)
+    private Integer id;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "id_vacuna", nullable = false)
+    private Vacuna idVacuna;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "id_propietario", nullable = false)
+    private Propietario idPropietario;
+
+    @NotNull
+    @Column(name = "proxima_dosis", nullable = false)
+    private LocalDate proximaDosis;
+
+    @NotNull
+    @Column(name = "fecha_generacion", nullable = false)
+    private LocalDate fechaGeneracion;
+
+    @Size(max = 20)
+    @ColumnDefault("'pendiente'")
+    @Column(name = "estado", length = 20)
+    private String estado;
+
+}
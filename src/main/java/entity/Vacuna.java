@@ -19,11 +19,17 @@ import java.time.LocalDate;
 @Setter
 @Entity
 @Table(name = "vacunas")
-public class Vacuna {
+@NamedEntityGraph(name = "Vacuna.lista", attributeNodes = @NamedAttributeNode("idVeterinario"))
+public class Vacuna implements Versionado {
     @Id
     @Column(name = "id_vacuna", nullable = false)
     private Integer id;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Size(max = 100)
     @NotNull
     @Column(name = "tipo_vacuna", nullable = false, length = 100)
@@ -40,13 +46,13 @@ public class Vacuna {
     @Column(name = "proxima_dosis")
     private LocalDate proximaDosis;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "id_mascota")
     @JsonBackReference("mascota-vacunas")
     private Mascota idMascota;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.SET_NULL)
     @JoinColumn(name = "id_veterinario")
     @JsonManagedReference("usuario-vacunas") // ✅ corregido
@@ -0,0 +1,12 @@
+package entity;
+
+/**
+ * Entidad con columna @Version. La versión se usa para el bloqueo optimista
+ * y para construir los ETag de la API REST.
+ */
+public interface Versionado {
+
+    Long getVersion();
+
+    void setVersion(Long version);
+}
@@ -0,0 +1,99 @@
+package monitoreo;
+
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Proveedor de conexiones de Hibernate sobre el DataSource del servidor que envuelve cada
+ * conexión y sus sentencias en proxies: los métodos execute* se cronometran y se informan
+ * a RegistroSentencias. Se mide la ejecución en la base, no la lectura del ResultSet.
+ * Se configura con hibernate.connection.provider_class en persistence.xml, a través de la
+ * subclase control.ConexionesReplica.
+ */
+public class ConexionesMedidas extends DatasourceConnectionProviderImpl {
+
+    private static final ClassLoader CARGADOR = ConexionesMedidas.class.getClassLoader();
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return envolver(conexionReal());
+    }
+
+    /**
+     * Conexión sin medir. Las subclases pueden tomarla de otro DataSource.
+     */
+    protected Connection conexionReal() throws SQLException {
+        return super.getConnection();
+    }
+
+    private static Connection envolver(Connection real) {
+        return (Connection) Proxy.newProxyInstance(CARGADOR, new Class<?>[]{Connection.class}, (proxy, metodo, args) -> {
+            Object identidad = identidad(proxy, metodo, args);
+            if (identidad != null) {
+                return identidad;
+            }
+            Object resultado = invocar(real, metodo, args);
+            return switch (metodo.getName()) {
+                case "prepareStatement" -> envolver((Statement) resultado, PreparedStatement.class, (String) args[0]);
+                case "prepareCall" -> envolver((Statement) resultado, CallableStatement.class, (String) args[0]);
+                case "createStatement" -> envolver((Statement) resultado, Statement.class, null);
+                default -> resultado;
+            };
+        });
+    }
+
+    /**
+     * @param sql SQL de la sentencia preparada, o null para un Statement (el SQL llega en execute).
+     */
+    private static Statement envolver(Statement real, Class<? extends Statement> tipo, String sql) {
+        RegistroSentencias registro = RegistroSentencias.instancia();
+        return (Statement) Proxy.newProxyInstance(CARGADOR, new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+            Object identidad = identidad(proxy, metodo, args);
+            if (identidad != null) {
+                return identidad;
+            }
+            if (!metodo.getName().startsWith("execute")) {
+                return invocar(real, metodo, args);
+            }
+            String ejecutada = args != null && args.length > 0 && args[0] instanceof String texto ? texto : sql;
+            long inicio = System.nanoTime();
+            boolean error = true;
+            try {
+                Object resultado = invocar(real, metodo, args);
+                error = false;
+                return resultado;
+            } finally {
+                registro.registrar(ejecutada, System.nanoTime() - inicio, error);
+            }
+        });
+    }
+
+    /**
+     * equals y hashCode por identidad del proxy: Hibernate guarda las sentencias abiertas en mapas.
+     */
+    private static Object identidad(Object proxy, Method metodo, Object[] args) {
+        if (metodo.getName().equals("equals") && args != null && args.length == 1) {
+            return proxy == args[0];
+        }
+        if (metodo.getName().equals("hashCode") && (args == null || args.length == 0)) {
+            return System.identityHashCode(proxy);
+        }
+        return null;
+    }
+
+    private static Object invocar(Object real, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(real, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
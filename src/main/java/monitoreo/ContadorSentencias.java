@@ -0,0 +1,57 @@
+package monitoreo;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual mientras se atiende
+ * una petición (hibernate.session_factory.statement_inspector en persistence.xml).
+ * MetricasFilter inicia el conteo al recibir la petición y lo publica al responder
+ * (las peticiones asíncronas lo pasan al hilo virtual, ver rest.EjecutorAsincrono):
+ * un endpoint cuyo número de sentencias crece con el tamaño de la página es un N+1.
+ * No modifica el SQL.
+ */
+public class ContadorSentencias implements StatementInspector {
+
+    // null fuera de una petición: los jobs y tareas en segundo plano no se cuentan
+    private static final ThreadLocal<int[]> CONTADOR = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] contador = CONTADOR.get();
+        if (contador != null) {
+            contador[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Inicia un conteo en el hilo actual.
+     * @return el contador, para leerlo al final aunque la petición termine en otro hilo.
+     */
+    static int[] iniciar() {
+        int[] contador = new int[1];
+        CONTADOR.set(contador);
+        return contador;
+    }
+
+    /**
+     * Quita el contador del hilo actual y lo devuelve (null si no había), para seguir
+     * contando en el hilo que continúa la petición con asociar().
+     */
+    public static int[] soltar() {
+        int[] contador = CONTADOR.get();
+        CONTADOR.remove();
+        return contador;
+    }
+
+    /**
+     * Cuenta en el hilo actual sobre un contador obtenido con soltar(); null deja de contar.
+     */
+    public static void asociar(int[] contador) {
+        if (contador == null) {
+            CONTADOR.remove();
+        } else {
+            CONTADOR.set(contador);
+        }
+    }
+}
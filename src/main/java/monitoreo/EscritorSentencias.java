@@ -0,0 +1,36 @@
+package monitoreo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+
+/**
+ * Dueño del hilo que vacía la cola de RegistroSentencias al log. El hilo sale de la
+ * ManagedThreadFactory del servidor y se interrumpe al detener la aplicación, así un
+ * redespliegue no deja hilos vivos reteniendo el cargador de clases anterior.
+ */
+@Singleton
+@Startup
+public class EscritorSentencias {
+
+    @Resource
+    private ManagedThreadFactory fabrica;
+
+    private Thread hilo;
+
+    @PostConstruct
+    void init() {
+        hilo = fabrica.newThread(RegistroSentencias.instancia()::escribir);
+        hilo.setName("registro-sentencias");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    @PreDestroy
+    void cerrar() {
+        hilo.interrupt();
+    }
+}
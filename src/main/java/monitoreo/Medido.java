@@ -0,0 +1,20 @@
+package monitoreo;
+
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mide con un timer cada método de negocio del bean (ver MetricasInterceptor).
+ * Es @Inherited: basta con anotar AbstractDataPersistence para cubrir todos los DAO.
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Medido {
+}
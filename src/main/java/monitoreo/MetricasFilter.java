@@ -0,0 +1,95 @@
+package monitoreo;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+
+import java.time.Duration;
+
+/**
+ * Publica en /metrics, por endpoint (clase de recurso y método Java):
+ * <ul>
+ *   <li>mascotas_http_peticiones: timer con la latencia hasta que el recurso devuelve la respuesta
+ *       (en /listar/stream no incluye la escritura del cuerpo).</li>
+ *   <li>mascotas_http_sentencias: histograma de sentencias SQL por petición (ContadorSentencias).</li>
+ *   <li>mascotas_http_errores: respuestas 5xx.</li>
+ * </ul>
+ * La etiqueta usa el método Java y no la URL, así que su cardinalidad es fija.
+ */
+@Provider
+@Priority(Priorities.USER - 100)
+public class MetricasFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String INICIO = MetricasFilter.class.getName() + ".inicio";
+
+    private static final String SENTENCIAS_PETICION = MetricasFilter.class.getName() + ".sentencias";
+
+    private static final Metadata PETICIONES = Metadata.builder()
+            .withName("mascotas.http.peticiones")
+            .withDescription("Latencia de las peticiones REST por endpoint")
+            .withUnit(MetricUnits.NANOSECONDS)
+            .build();
+
+    private static final Metadata SENTENCIAS = Metadata.builder()
+            .withName("mascotas.http.sentencias")
+            .withDescription("Sentencias SQL preparadas por petición REST")
+            .build();
+
+    private static final Metadata ERRORES = Metadata.builder()
+            .withName("mascotas.http.errores")
+            .withDescription("Respuestas 5xx por endpoint")
+            .build();
+
+    @Inject
+    private MetricRegistry registry;
+
+    @Context
+    private ResourceInfo recurso;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        request.setProperty(INICIO, System.nanoTime());
+        request.setProperty(SENTENCIAS_PETICION, ContadorSentencias.iniciar());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object inicio = request.getProperty(INICIO);
+        // Una respuesta asíncrona se completa en otro hilo: el conteo se lee del contador de la petición
+        ContadorSentencias.soltar();
+        int[] contador = (int[]) request.getProperty(SENTENCIAS_PETICION);
+        int sentencias = contador == null ? -1 : contador[0];
+        if (inicio == null || recurso == null || recurso.getResourceMethod() == null) {
+            return; // sin método de recurso (404, OPTIONS de CORS): no hay endpoint que etiquetar
+        }
+
+        Tag endpoint = new Tag("endpoint", nombreClase(recurso.getResourceClass()) + "." + recurso.getResourceMethod().getName());
+        registry.timer(PETICIONES, endpoint).update(Duration.ofNanos(System.nanoTime() - (Long) inicio));
+        if (sentencias >= 0) {
+            registry.histogram(SENTENCIAS, endpoint).update(sentencias);
+        }
+        if (response.getStatus() >= 500) {
+            registry.counter(ERRORES, endpoint).inc();
+        }
+    }
+
+    /**
+     * Nombre simple de la clase del recurso, sin el sufijo de los proxies de CDI.
+     */
+    static String nombreClase(Class<?> clase) {
+        String nombre = clase.getSimpleName();
+        int proxy = nombre.indexOf('$');
+        return proxy > 0 ? nombre.substring(0, proxy) : nombre;
+    }
+}
@@ -0,0 +1,54 @@
+package monitoreo;
+
+import control.EstadisticasDAO;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.hibernate.stat.Statistics;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Exporta en /metrics los contadores de Statistics de Hibernate (hibernate.generate_statistics).
+ * Son acumulados desde el arranque y se publican como gauges que se leen en cada consulta
+ * de /metrics; la tasa por segundo se calcula en el sistema de monitoreo.
+ */
+@Singleton
+@Startup
+public class MetricasHibernate {
+
+    @Inject
+    private EstadisticasDAO estadisticasDAO;
+
+    @Inject
+    private MetricRegistry registry;
+
+    @PostConstruct
+    void init() {
+        Statistics statistics = estadisticasDAO.getStatistics();
+        registrar(statistics, "consultas", "Consultas JPQL/Criteria ejecutadas", Statistics::getQueryExecutionCount);
+        registrar(statistics, "consultas.tiempo.maximo", "Tiempo de la consulta más lenta (ms)", Statistics::getQueryExecutionMaxTime);
+        registrar(statistics, "sentencias.preparadas", "Sentencias JDBC preparadas", Statistics::getPrepareStatementCount);
+        registrar(statistics, "entidades.cargadas", "Entidades cargadas desde la base", Statistics::getEntityLoadCount);
+        registrar(statistics, "entidades.recuperadas", "Entidades recuperadas por asociación (fetch)", Statistics::getEntityFetchCount);
+        registrar(statistics, "colecciones.cargadas", "Colecciones cargadas", Statistics::getCollectionLoadCount);
+        registrar(statistics, "cache.aciertos", "Aciertos de la caché de segundo nivel", Statistics::getSecondLevelCacheHitCount);
+        registrar(statistics, "cache.fallos", "Fallos de la caché de segundo nivel", Statistics::getSecondLevelCacheMissCount);
+        registrar(statistics, "cache.escrituras", "Escrituras en la caché de segundo nivel", Statistics::getSecondLevelCachePutCount);
+        registrar(statistics, "flushes", "Flushes de sesión", Statistics::getFlushCount);
+        registrar(statistics, "sesiones", "Sesiones abiertas", Statistics::getSessionOpenCount);
+        registrar(statistics, "transacciones", "Transacciones terminadas", Statistics::getTransactionCount);
+        registrar(statistics, "bloqueo.optimista.fallos", "Fallos de bloqueo optimista", Statistics::getOptimisticFailureCount);
+    }
+
+    private void registrar(Statistics statistics, String nombre, String descripcion, ToLongFunction<Statistics> valor) {
+        Metadata metadata = Metadata.builder()
+                .withName("mascotas.hibernate." + nombre)
+                .withDescription(descripcion)
+                .build();
+        registry.gauge(metadata, statistics, s -> valor.applyAsLong(s));
+    }
+}
@@ -0,0 +1,49 @@
+package monitoreo;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+
+import java.time.Duration;
+
+/**
+ * Timer mascotas_dao_operaciones por DAO y método (findRange, count, updateById...).
+ * Las llamadas que terminan en excepción se miden igual, con resultado="error".
+ */
+@Medido
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class MetricasInterceptor {
+
+    private static final Metadata OPERACIONES = Metadata.builder()
+            .withName("mascotas.dao.operaciones")
+            .withDescription("Duración de las operaciones de persistencia por DAO y método")
+            .withUnit(MetricUnits.NANOSECONDS)
+            .build();
+
+    @Inject
+    private MetricRegistry registry;
+
+    @AroundInvoke
+    public Object medir(InvocationContext contexto) throws Exception {
+        long inicio = System.nanoTime();
+        String resultado = "error";
+        try {
+            Object valor = contexto.proceed();
+            resultado = "ok";
+            return valor;
+        } finally {
+            registry.timer(OPERACIONES,
+                    new Tag("dao", MetricasFilter.nombreClase(contexto.getTarget().getClass())),
+                    new Tag("metodo", contexto.getMethod().getName()),
+                    new Tag("resultado", resultado))
+                    .update(Duration.ofNanos(System.nanoTime() - inicio));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package monitoreo;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Estadísticas por huella de SQL (la sentencia con literales y listas IN normalizados) y
+ * registro de sentencias lentas o muestreadas. El hilo de la petición solo encola: el log
+ * lo escribe el hilo administrado de EscritorSentencias, y si la cola se llena la entrada se
+ * descarta y se cuenta.
+ * Configuración (MicroProfile Config):
+ * <ul>
+ *   <li>mascotas.sql.umbral-ms: se registra toda sentencia que tarde más (200 por defecto).</li>
+ *   <li>mascotas.sql.muestreo: fracción de las demás que se registra (0 por defecto).</li>
+ * </ul>
+ * El log no incluye valores de parámetros.
+ */
+public final class RegistroSentencias {
+
+    private static final Logger LOG = Logger.getLogger(RegistroSentencias.class.getName());
+
+    private static final int CAPACIDAD_COLA = 10_000;
+
+    // Cota de huellas distintas; las que no caben se acumulan en OTRAS
+    private static final int MAX_HUELLAS = 2_000;
+
+    private static final String OTRAS = "(otras)";
+
+    private static final Pattern LITERAL_TEXTO = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern LITERAL_NUMERO = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    // Desde un solo valor: "in (?)" y "in (?, ?)" son la misma sentencia. Solo tras "in", para no
+    // tocar llamadas como lower(?)
+    private static final Pattern LISTA_IN = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private static final RegistroSentencias INSTANCIA = new RegistroSentencias();
+
+    /**
+     * Criterios para ordenar el top de huellas.
+     */
+    public enum Orden {
+        TOTAL, MAXIMO, CONTEO, PROMEDIO
+    }
+
+    private record Entrada(String sql, long nanos, boolean lenta, boolean error) {
+    }
+
+    private static final class Estadistica {
+        final LongAdder conteo = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder errores = new LongAdder();
+        final AtomicLong maximo = new AtomicLong();
+
+        void registrar(long duracion, boolean error) {
+            conteo.increment();
+            nanos.add(duracion);
+            maximo.accumulateAndGet(duracion, Math::max);
+            if (error) {
+                errores.increment();
+            }
+        }
+    }
+
+    private record Fila(String huella, long conteo, long nanos, long maximo, long errores) {
+        double promedio() {
+            return conteo == 0 ? 0 : (double) nanos / conteo;
+        }
+    }
+
+    private final long umbralNanos;
+
+    private final double muestreo;
+
+    private final Map<String, Estadistica> estadisticas = new ConcurrentHashMap<>();
+
+    // El SQL de Hibernate se repite: se normaliza una vez por texto distinto
+    private final Map<String, String> huellas = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Entrada> pendientes = new ArrayBlockingQueue<>(CAPACIDAD_COLA);
+
+    private final LongAdder descartadas = new LongAdder();
+
+    private RegistroSentencias() {
+        long umbralMs = 200;
+        double fraccion = 0;
+        try {
+            Config config = ConfigProvider.getConfig();
+            umbralMs = config.getOptionalValue("mascotas.sql.umbral-ms", Long.class).orElse(umbralMs);
+            fraccion = config.getOptionalValue("mascotas.sql.muestreo", Double.class).orElse(fraccion);
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "No se pudo leer la configuración del registro de sentencias; se usan los valores por defecto", e);
+        }
+        umbralNanos = TimeUnit.MILLISECONDS.toNanos(umbralMs);
+        muestreo = fraccion;
+    }
+
+    public static RegistroSentencias instancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Acumula la ejecución en su huella y la encola para el log si es lenta o sale en la muestra.
+     */
+    void registrar(String sql, long nanos, boolean error) {
+        if (sql == null) {
+            sql = "(lote)"; // executeBatch de un Statement sin preparar
+        }
+        estadistica(huella(sql)).registrar(nanos, error);
+
+        boolean lenta = nanos >= umbralNanos;
+        if (lenta || error || (muestreo > 0 && ThreadLocalRandom.current().nextDouble() < muestreo)) {
+            if (!pendientes.offer(new Entrada(sql, nanos, lenta, error))) {
+                descartadas.increment();
+            }
+        }
+    }
+
+    /**
+     * Las n huellas con mayor valor según el orden, con tiempos en milisegundos.
+     */
+    public List<Map<String, Object>> top(int n, Orden orden) {
+        Comparator<Fila> comparador = switch (orden) {
+            case TOTAL -> Comparator.comparingLong(Fila::nanos);
+            case MAXIMO -> Comparator.comparingLong(Fila::maximo);
+            case CONTEO -> Comparator.comparingLong(Fila::conteo);
+            case PROMEDIO -> Comparator.comparingDouble(Fila::promedio);
+        };
+        List<Fila> filas = new ArrayList<>(estadisticas.size());
+        estadisticas.forEach((huella, e) ->
+                filas.add(new Fila(huella, e.conteo.sum(), e.nanos.sum(), e.maximo.get(), e.errores.sum())));
+        filas.sort(comparador.reversed());
+
+        List<Map<String, Object>> resultado = new ArrayList<>(Math.min(n, filas.size()));
+        for (Fila fila : filas.subList(0, Math.min(n, filas.size()))) {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("huella", fila.huella());
+            mapa.put("conteo", fila.conteo());
+            mapa.put("totalMs", fila.nanos() / 1e6);
+            mapa.put("promedioMs", fila.promedio() / 1e6);
+            mapa.put("maximoMs", fila.maximo() / 1e6);
+            mapa.put("errores", fila.errores());
+            resultado.add(mapa);
+        }
+        return resultado;
+    }
+
+    /**
+     * Entradas del log descartadas porque la cola estaba llena.
+     */
+    public long getDescartadas() {
+        return descartadas.sum();
+    }
+
+    public void reiniciar() {
+        estadisticas.clear();
+        descartadas.reset();
+    }
+
+    private Estadistica estadistica(String huella) {
+        Estadistica estadistica = estadisticas.get(huella);
+        if (estadistica != null) {
+            return estadistica;
+        }
+        if (estadisticas.size() >= MAX_HUELLAS) {
+            return estadisticas.computeIfAbsent(OTRAS, clave -> new Estadistica());
+        }
+        return estadisticas.computeIfAbsent(huella, clave -> new Estadistica());
+    }
+
+    private String huella(String sql) {
+        String huella = huellas.get(sql);
+        if (huella == null) {
+            huella = normalizar(sql);
+            if (huellas.size() < MAX_HUELLAS * 4) {
+                huellas.put(sql, huella);
+            }
+        }
+        return huella;
+    }
+
+    /**
+     * Literales de texto y números a '?', listas IN a "(?...)" y espacios colapsados.
+     */
+    static String normalizar(String sql) {
+        String huella = LITERAL_TEXTO.matcher(sql).replaceAll("?");
+        huella = LITERAL_NUMERO.matcher(huella).replaceAll("?");
+        huella = LISTA_IN.matcher(huella).replaceAll("in (?...)");
+        return ESPACIOS.matcher(huella).replaceAll(" ").trim();
+    }
+
+    /**
+     * Escribe en el log las entradas encoladas hasta que se interrumpa el hilo.
+     */
+    void escribir() {
+        while (true) {
+            Entrada entrada;
+            try {
+                entrada = pendientes.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            String tipo = entrada.error() ? "con error" : entrada.lenta() ? "lenta" : "muestra";
+            LOG.log(entrada.lenta() || entrada.error() ? Level.WARNING : Level.INFO,
+                    String.format("SQL %s (%.1f ms): %s", tipo, entrada.nanos() / 1e6, entrada.sql()));
+        }
+    }
+}
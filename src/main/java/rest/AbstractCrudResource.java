@@ -1,11 +1,42 @@
 package rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import config.ObjectMapperProvider;
 import control.AbstractDataPersistence;
+import control.ConflictoException;
+import control.ConsultaInvalidaException;
+import control.Conteo;
+import control.EstrategiaConteo;
+import control.Filtro;
+import control.MarcaCambios;
+import control.ModoLectura;
+import control.Pagina;
+import entity.Versionado;
+import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.*;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.Providers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,6 +51,32 @@ public abstract class AbstractCrudResource<T, ID> {
 
     private static final Logger LOG = Logger.getLogger(AbstractCrudResource.class.getName());
 
+    private static final int MAX_FETCH_SIZE = 10_000;
+
+    private static final int MAX_LOTE = 1_000;
+
+    private static final String MEDIA_TYPE_MERGE_PATCH = "application/merge-patch+json";
+
+    private static final String ESTADO_VIOLACION_UNICA = "23505";
+
+    @Context
+    private Providers providers;
+
+    @Inject
+    private Validator validator;
+
+    @Inject
+    private CacheJson cacheJson;
+
+    @Inject
+    private EjecutorAsincrono asincrono;
+
+    @Context
+    private Request request;
+
+    @Context
+    private HttpHeaders headers;
+
     /**
      * Método abstracto que las clases hijas deben implementar
      * para proporcionar el DAO (servicio de persistencia) específico.
@@ -42,43 +99,277 @@ public abstract class AbstractCrudResource<T, ID> {
      */
     protected abstract void setId(T entity, ID id);
 
+    /**
+     * Entidades cuyo JSON de detalle incluye a esta (por ejemplo, Mascota incluye sus citas).
+     * Sus entradas en CacheJson se descartan cuando esta entidad cambia.
+     */
+    protected List<Class<?>> getTiposQueLaIncluyen() {
+        return List.of();
+    }
+
+    /**
+     * Entidades cuyas filas la base borra o desvincula al eliminar esta (ON DELETE CASCADE /
+     * SET NULL en sql/base.sql). Sus entradas en CacheJson se descartan en /eliminar.
+     */
+    protected List<Class<?>> getTiposDependientes() {
+        return List.of();
+    }
+
+    /**
+     * Entidades que aparecen dentro del JSON de esta (por ejemplo, Cita incluye a su veterinario).
+     * Sus marcas de cambios forman parte de los ETag, para que un cambio en ellas invalide la respuesta.
+     */
+    protected List<Class<?>> getTiposIncluidos() {
+        return List.of();
+    }
+
+    /**
+     * Grafo de entidad (@NamedEntityGraph) para los endpoints de listado.
+     * No debe incluir colecciones. Con null solo se cargan las columnas de la entidad;
+     * las asociaciones perezosas no cargadas se omiten del JSON.
+     */
+    protected String getGrafoLista() {
+        return null;
+    }
+
+    /**
+     * Grafo de entidad para /obtener/{id}. Por defecto, el mismo del listado.
+     */
+    protected String getGrafoDetalle() {
+        return getGrafoLista();
+    }
+
+    /**
+     * Lista todas las entidades, o las que cumplen ?filtro=campo:operador:valor (repetible)
+     * en el orden de ?orden=campo,-campo. Los campos permitidos los define el DAO.
+     * Con ?fields=nombre,especie solo se leen y devuelven esas columnas (y el ID).
+     */
     @GET
     @Path("/listar")
-    public Response listar() {
+    public CompletionStage<Response> listar(@QueryParam("filtro") List<String> filtros,
+                                            @QueryParam("orden") String orden,
+                                            @QueryParam("fields") String fields) {
+        Filtro filtro;
         try {
-            List<T> entities = new ArrayList<>(getService().findAll());
-            return Response.ok(entities).build();
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error al listar entidades", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\":\"Error interno al listar entidades\"}")
+            filtro = Filtro.parse(filtros, orden);
+        } catch (ConsultaInvalidaException e) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(cuerpoError(e.getMessage()))
+                    .build());
+        }
+        List<String> campos = campos(fields);
+        EntityTag etag = etagListado();
+        Response.ResponseBuilder noModificado = request.evaluatePreconditions(etag);
+        if (noModificado != null) {
+            return CompletableFuture.completedFuture(noModificado.build());
+        }
+
+        return asincrono.ejecutar(() -> {
+            try {
+                if (campos != null) {
+                    return Response.ok(getService().findProyeccion(campos, filtro, 0, 0)).tag(etagSiPrincipal(etag)).build();
+                }
+                List<T> entities = new ArrayList<>(filtro == null
+                        ? getService().findAll(getGrafoLista())
+                        : getService().findFiltrado(filtro, 0, 0, getGrafoLista()));
+                return Response.ok(entities).tag(etagSiPrincipal(etag)).build();
+            } catch (ConsultaInvalidaException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(cuerpoError(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error al listar entidades", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\":\"Error interno al listar entidades\"}")
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * Variante de /listar que escribe el arreglo JSON a medida que lee las filas,
+     * con memoria constante sin importar el tamaño de la tabla.
+     */
+    @GET
+    @Path("/listar/stream")
+    public Response listarStream(@QueryParam("fetchSize") @DefaultValue("500") int fetchSize) {
+        if (fetchSize <= 0 || fetchSize > MAX_FETCH_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(cuerpoError("fetchSize debe estar entre 1 y " + MAX_FETCH_SIZE))
                     .build();
         }
+
+        EntityTag etag = etagListado();
+        Response.ResponseBuilder noModificado = request.evaluatePreconditions(etag);
+        if (noModificado != null) {
+            return noModificado.build();
+        }
+
+        ObjectMapper mapper = getObjectMapper();
+        // Sin flush por entidad: el generador vacía su buffer a la salida cuando se llena.
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // La consulta corre al escribir la respuesta, en el hilo de la petición: ocupa un turno
+        // del bulkhead mientras dura; sin turno a tiempo responde 503 antes de escribir nada.
+        StreamingOutput salida = output -> {
+            try {
+                asincrono.enTurno(() -> escribirTodos(mapper, writer, fetchSize, output));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return Response.ok(salida, MediaType.APPLICATION_JSON).tag(etag).build();
+    }
+
+    /**
+     * Escribe el arreglo JSON de todas las entidades en la salida.
+     * @throws UncheckedIOException si falla la consulta o la escritura, con la respuesta quizá ya enviada en parte.
+     */
+    private void escribirTodos(ObjectMapper mapper, ObjectWriter writer, int fetchSize, OutputStream output) {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            getService().recorrerTodos(fetchSize, getGrafoLista(), entity -> {
+                try {
+                    writer.writeValue(generator, entity);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            // La respuesta ya pudo haberse enviado en parte: solo queda registrar y cortar.
+            LOG.log(Level.SEVERE, "Error al listar entidades en streaming", e);
+            throw new UncheckedIOException(new IOException("Error interno al listar entidades", e));
+        }
     }
 
     @GET
     @Path("/obtener/{id}")
-    public Response obtenerPorId(@PathParam("id") ID id) {
+    public CompletionStage<Response> obtenerPorId(@PathParam("id") ID id, @QueryParam("fields") String fields) {
         if (id == null) {
-            return Response.status(Response.Status.BAD_REQUEST)
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
                     .entity("{\"error\":\"ID no puede ser nulo\"}")
-                    .build();
+                    .build());
         }
-        try {
-            T entity = getService().findById(id);
-            if (entity != null) {
-                return Response.ok(entity).build();
-            } else {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity("{\"error\":\"No se encontró una entidad con id: " + id + "\"}")
+        List<String> campos = campos(fields);
+        Class<T> tipo = getService().getTipoDato();
+        if (campos == null) {
+            CacheJson.Entrada enCache = cacheJson.obtener(tipo, id);
+            if (enCache != null) {
+                EntityTag etag = new EntityTag(enCache.etag());
+                Response.ResponseBuilder noModificado = request.evaluatePreconditions(etag);
+                return CompletableFuture.completedFuture(noModificado != null
+                        ? noModificado.build()
+                        : Response.ok(enCache.json(), MediaType.APPLICATION_JSON).tag(etag).build());
+            }
+        }
+        // Los proxies @Context solo valen en el hilo de la petición: se leen antes de pasar al hilo virtual
+        String ifNoneMatch = headers.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+        ObjectMapper mapper = getObjectMapper();
+
+        return asincrono.ejecutar(() -> {
+            try {
+                if (campos != null) {
+                    // La proyección no pasa por CacheJson: es una lectura de pocas columnas por clave primaria
+                    Map<String, Object> fila = getService().findProyeccionById(id, campos);
+                    return fila != null
+                            ? Response.ok(fila).build()
+                            : Response.status(Response.Status.NOT_FOUND)
+                                    .entity(cuerpoError("No se encontró una entidad con id: " + id))
+                                    .build();
+                }
+
+                // Con If-None-Match basta leer la versión para responder 304 sin cargar ni serializar
+                if (ifNoneMatch != null) {
+                    Long version = getService().findVersion(id);
+                    if (version != null && coincideIfNoneMatch(ifNoneMatch, etagEntidad(version))) {
+                        return Response.notModified(etagEntidad(version)).build();
+                    }
+                }
+
+                long generacion = cacheJson.generacion(tipo);
+                T entity = getService().findById(id, getGrafoDetalle());
+                if (entity != null) {
+                    EntityTag etag = etagEntidad(version(entity));
+                    byte[] json = mapper.writeValueAsBytes(entity);
+                    if (!ModoLectura.leyoDeReplica()) { // la réplica puede ir atrasada
+                        cacheJson.guardar(tipo, id, json, etag.getValue(), generacion);
+                    }
+                    return Response.ok(json, MediaType.APPLICATION_JSON).tag(etagSiPrincipal(etag)).build();
+                } else {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(cuerpoError("No se encontró una entidad con id: " + id))
+                            .build();
+                }
+            } catch (ConsultaInvalidaException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(cuerpoError(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error al obtener entidad por id", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\":\"Error interno al obtener la entidad\"}")
                         .build();
             }
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error al obtener entidad por id", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\":\"Error interno al obtener la entidad\"}")
-                    .build();
+        });
+    }
+
+    /**
+     * Varias entidades por ID en una sola petición: GET /obtener?ids=1,2,3. Responde
+     * {"elementos": [...], "noEncontrados": [...]} con los elementos en el orden pedido
+     * (sin repetidos) y el mismo JSON que /listar; los IDs inexistentes no son un error.
+     */
+    @GET
+    @Path("/obtener")
+    public CompletionStage<Response> obtenerVarios(@QueryParam("ids") String ids) {
+        List<String> pedidos = new ArrayList<>();
+        if (ids != null) {
+            for (String id : ids.split(",")) {
+                if (!id.isBlank()) {
+                    pedidos.add(id.trim());
+                }
+            }
+        }
+        if (pedidos.isEmpty() || pedidos.size() > MAX_LOTE) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(cuerpoError("Se esperan entre 1 y " + MAX_LOTE + " IDs en ids"))
+                    .build());
         }
+        EntityTag etag = etagListado();
+        Response.ResponseBuilder noModificado = request.evaluatePreconditions(etag);
+        if (noModificado != null) {
+            return CompletableFuture.completedFuture(noModificado.build());
+        }
+
+        return asincrono.ejecutar(() -> {
+            try {
+                Map<Object, T> porId = getService().findByIds(pedidos, getGrafoLista());
+                List<T> elementos = new ArrayList<>(porId.size());
+                List<Object> noEncontrados = new ArrayList<>();
+                porId.forEach((id, entity) -> {
+                    if (entity != null) {
+                        elementos.add(entity);
+                    } else {
+                        noEncontrados.add(id);
+                    }
+                });
+                Map<String, Object> cuerpo = new LinkedHashMap<>();
+                cuerpo.put("elementos", elementos);
+                cuerpo.put("noEncontrados", noEncontrados);
+                return Response.ok(cuerpo).tag(etagSiPrincipal(etag)).build();
+            } catch (ConsultaInvalidaException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(cuerpoError(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error al obtener entidades por id", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\":\"Error interno al obtener las entidades\"}")
+                        .build();
+            }
+        });
     }
 
     @POST
@@ -93,6 +384,7 @@ public abstract class AbstractCrudResource<T, ID> {
         try {
             getService().create(entity);
             ID entityId = getId(entity);
+            invalidarCache(entityId);
 
             if (entityId != null) {
                 UriBuilder uriBuilder = uriInfo.getAbsolutePathBuilder().path(entityId.toString());
@@ -103,6 +395,12 @@ public abstract class AbstractCrudResource<T, ID> {
                         .build();
             }
         } catch (Exception e) {
+            String conflicto = mensajeConflicto(e);
+            if (conflicto != null) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity(cuerpoError(conflicto))
+                        .build();
+            }
             LOG.log(Level.SEVERE, "Error al crear la entidad", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"error\":\"Error interno al crear la entidad\"}")
@@ -110,6 +408,75 @@ public abstract class AbstractCrudResource<T, ID> {
         }
     }
 
+    /**
+     * Crea todas las entidades de un arreglo JSON en una sola transacción con batching JDBC.
+     * Los elementos que no se pueden leer o no pasan la validación se reportan en su
+     * posición y no se insertan; el resto se crea. Un error de base de datos revierte el lote completo.
+     */
+    @POST
+    @Path("/crear/lote")
+    @Transactional
+    public Response crearLote(JsonNode lote) {
+        if (lote == null || !lote.isArray() || lote.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"Se esperaba un arreglo JSON no vacío\"}")
+                    .build();
+        }
+        if (lote.size() > MAX_LOTE) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(cuerpoError("El lote no puede tener más de " + MAX_LOTE + " elementos"))
+                    .build();
+        }
+        try {
+            ObjectMapper mapper = getObjectMapper();
+            Class<T> tipo = getService().getTipoDato();
+            ResultadoLote[] resultados = new ResultadoLote[lote.size()];
+            List<T> validas = new ArrayList<>(lote.size());
+            List<Integer> indices = new ArrayList<>(lote.size());
+
+            for (int i = 0; i < lote.size(); i++) {
+                T entity;
+                try {
+                    entity = mapper.treeToValue(lote.get(i), tipo);
+                } catch (IOException | IllegalArgumentException e) {
+                    resultados[i] = ResultadoLote.error(i, "JSON inválido para la entidad");
+                    continue;
+                }
+                if (entity == null) {
+                    resultados[i] = ResultadoLote.error(i, "La entidad no puede ser nula");
+                    continue;
+                }
+                Set<ConstraintViolation<T>> violaciones = validator.validate(entity);
+                if (!violaciones.isEmpty()) {
+                    ConstraintViolation<T> primera = violaciones.iterator().next();
+                    resultados[i] = ResultadoLote.error(i, primera.getPropertyPath() + ": " + primera.getMessage());
+                    continue;
+                }
+                validas.add(entity);
+                indices.add(i);
+            }
+
+            if (!validas.isEmpty()) {
+                getService().createAll(validas);
+                getTiposQueLaIncluyen().forEach(cacheJson::invalidarTipo);
+            }
+            for (int j = 0; j < validas.size(); j++) {
+                resultados[indices.get(j)] = ResultadoLote.creado(indices.get(j), getId(validas.get(j)));
+            }
+
+            Map<String, Object> cuerpo = new LinkedHashMap<>();
+            cuerpo.put("creados", validas.size());
+            cuerpo.put("errores", resultados.length - validas.size());
+            cuerpo.put("resultados", resultados);
+            return Response.ok(cuerpo).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error al crear el lote de entidades", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\":\"Error interno al crear el lote; no se creó ninguna entidad\"}")
+                    .build();
+        }
+    }
+
     @PUT
     @Path("/actualizar/{id}")
     @Transactional
@@ -119,16 +486,59 @@ public abstract class AbstractCrudResource<T, ID> {
                     .entity("{\"error\":\"ID y entidad no pueden ser nulos\"}")
                     .build();
         }
+        // El UPDATE por Criteria no pasa por la validación que hacía el flush del merge
+        Set<ConstraintViolation<T>> violaciones = validator.validate(entity);
+        if (!violaciones.isEmpty()) {
+            ConstraintViolation<T> primera = violaciones.iterator().next();
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(cuerpoError(primera.getPropertyPath() + ": " + primera.getMessage()))
+                    .build();
+        }
         try {
-            if (getService().findById(id) == null) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity("{\"error\":\"No se encontró entidad con id: " + id + "\"}")
+            setId(entity, id); // Aseguramos que la entidad tenga el ID correcto
+            // If-Match tiene prioridad; si no viene, se usa la versión del cuerpo (o ninguna)
+            Long versionEsperada = versionIfMatch();
+            if (versionEsperada == null) {
+                versionEsperada = version(entity);
+            }
+
+            // Un solo UPDATE por id y versión; sin lectura previa
+            if (getService().updateById(id, entity, versionEsperada) == 0) {
+                // Solo en el camino de error se consulta si existe, para distinguir 404 de 412
+                Long versionActual = getService().findVersion(id);
+                if (versionActual == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(cuerpoError("No se encontró entidad con id: " + id))
+                            .build();
+                }
+                return Response.status(Response.Status.PRECONDITION_FAILED)
+                        .entity("{\"error\":\"La entidad fue modificada por otro cliente\"}")
+                        .tag(etagEntidad(versionActual))
                         .build();
             }
-            setId(entity, id); // Aseguramos que la entidad tenga el ID correcto
-            T updatedEntity = getService().update(entity);
-            return Response.ok(updatedEntity).build();
+            invalidarCache(id);
+
+            Response.ResponseBuilder builder = Response.ok();
+            if (entity instanceof Versionado versionado) {
+                // Sin versión esperada la nueva versión no se conoce sin otra consulta
+                versionado.setVersion(versionEsperada != null ? versionEsperada + 1 : null);
+                if (versionEsperada != null) {
+                    builder.tag(etagEntidad(versionEsperada + 1));
+                }
+            }
+            return builder.entity(entity).build();
         } catch (Exception e) {
+            if (esConflictoDeVersion(e)) {
+                return Response.status(Response.Status.PRECONDITION_FAILED)
+                        .entity("{\"error\":\"La entidad fue modificada por otro cliente\"}")
+                        .build();
+            }
+            String conflicto = mensajeConflicto(e);
+            if (conflicto != null) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity(cuerpoError(conflicto))
+                        .build();
+            }
             LOG.log(Level.SEVERE, "Error al actualizar entidad", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"error\":\"Error interno al actualizar la entidad\"}")
@@ -136,6 +546,93 @@ public abstract class AbstractCrudResource<T, ID> {
         }
     }
 
+    /**
+     * Actualización parcial con JSON Merge Patch (RFC 7386): solo se escriben las columnas
+     * de las propiedades presentes en el parche, en un único UPDATE. Un valor null borra el campo.
+     * Las asociaciones a uno se reemplazan por referencia (p. ej. {"idVeterinario":{"id":3}}),
+     * no se fusionan. "id" se ignora y "version" se usa como versión esperada si no hay If-Match.
+     * Responde 204 sin cuerpo para no releer la entidad.
+     */
+    @PATCH
+    @Path("/actualizar/{id}")
+    @Consumes(MEDIA_TYPE_MERGE_PATCH)
+    @Transactional
+    public Response actualizarParcial(@PathParam("id") ID id, JsonNode parche) {
+        if (id == null || parche == null || !parche.isObject()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"Se esperaba un objeto JSON Merge Patch\"}")
+                    .build();
+        }
+        Class<T> tipo = getService().getTipoDato();
+        T valores;
+        try {
+            valores = getObjectMapper().treeToValue(parche, tipo);
+        } catch (IOException | IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"JSON inválido para la entidad\"}")
+                    .build();
+        }
+
+        Set<String> nombres = new LinkedHashSet<>();
+        parche.fieldNames().forEachRemaining(nombres::add);
+        nombres.remove("id");
+        boolean traeVersion = nombres.remove("version");
+        if (nombres.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"El parche no modifica ningún campo\"}")
+                    .build();
+        }
+        for (String nombre : nombres) {
+            Set<ConstraintViolation<T>> violaciones = validator.validateProperty(valores, nombre);
+            if (!violaciones.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(cuerpoError(nombre + ": " + violaciones.iterator().next().getMessage()))
+                        .build();
+            }
+        }
+
+        Long versionEsperada = versionIfMatch();
+        if (versionEsperada == null && traeVersion) {
+            versionEsperada = version(valores);
+        }
+        try {
+            if (getService().updateParcial(id, valores, nombres, versionEsperada) == 0) {
+                Long versionActual = getService().findVersion(id);
+                if (versionActual == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(cuerpoError("No se encontró entidad con id: " + id))
+                            .build();
+                }
+                return Response.status(Response.Status.PRECONDITION_FAILED)
+                        .entity("{\"error\":\"La entidad fue modificada por otro cliente\"}")
+                        .tag(etagEntidad(versionActual))
+                        .build();
+            }
+            invalidarCache(id);
+
+            Response.ResponseBuilder builder = Response.noContent();
+            if (versionEsperada != null) {
+                builder.tag(etagEntidad(versionEsperada + 1));
+            }
+            return builder.build();
+        } catch (ConsultaInvalidaException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(cuerpoError(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            String conflicto = mensajeConflicto(e);
+            if (conflicto != null) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity(cuerpoError(conflicto))
+                        .build();
+            }
+            LOG.log(Level.SEVERE, "Error al actualizar parcialmente la entidad", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\":\"Error interno al actualizar la entidad\"}")
+                    .build();
+        }
+    }
+
     @DELETE
     @Path("/eliminar/{id}") // Corregido a minúscula para consistencia
     @Transactional
@@ -146,13 +643,14 @@ public abstract class AbstractCrudResource<T, ID> {
                     .build();
         }
         try {
-            T entity = getService().findById(id);
-            if (entity == null) {
+            // Un solo DELETE; las dependencias las borra la base con ON DELETE CASCADE
+            if (getService().deleteById(id) == 0) {
                 return Response.status(Response.Status.NOT_FOUND)
-                        .entity("{\"error\":\"No se encontró entidad con id: " + id + "\"}")
+                        .entity(cuerpoError("No se encontró entidad con id: " + id))
                         .build();
             }
-            getService().delete(entity);
+            invalidarCache(id);
+            getTiposDependientes().forEach(cacheJson::invalidarTipo);
             return Response.noContent().build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error al eliminar la entidad", e);
@@ -163,19 +661,94 @@ public abstract class AbstractCrudResource<T, ID> {
     }
 
     // El método de paginación también se puede generalizar
+    // Con "filtro" u "orden" se pagina por OFFSET (start) y Total-Records es el total filtrado.
+    // Sin "start" (o con "cursor") se pagina por cursor: el costo no depende de la profundidad.
+    // "start" > 0 se mantiene por compatibilidad y usa OFFSET.
+    // Con "fields" se devuelven solo esas columnas y también se pagina por OFFSET.
     @GET
     @Path("/listar/rango")
-    public Response listarPorRango(@QueryParam("start") @DefaultValue("0") int start,
-                                   @QueryParam("size") @DefaultValue("50") int size) {
+    public CompletionStage<Response> listarPorRango(@QueryParam("start") @DefaultValue("0") int start,
+                                                    @QueryParam("size") @DefaultValue("50") int size,
+                                                    @QueryParam("cursor") String cursor,
+                                                    @QueryParam("ordenarPor") String ordenarPor,
+                                                    @QueryParam("filtro") List<String> filtros,
+                                                    @QueryParam("orden") String orden,
+                                                    @QueryParam("fields") String fields) {
+        Filtro filtro;
         try {
-            if (start < 0 || size <= 0) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("{\"error\":\"Parámetros de paginación inválidos\"}")
+            filtro = Filtro.parse(filtros, orden);
+        } catch (ConsultaInvalidaException e) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(cuerpoError(e.getMessage()))
+                    .build());
+        }
+        List<String> campos = campos(fields);
+        if (start < 0 || size <= 0 || (start > 0 && cursor != null)
+                || ((filtro != null || campos != null) && (cursor != null || ordenarPor != null))) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"Parámetros de paginación inválidos\"}")
+                    .build());
+        }
+        EntityTag etag = etagListado();
+        Response.ResponseBuilder noModificado = request.evaluatePreconditions(etag);
+        if (noModificado != null) {
+            return CompletableFuture.completedFuture(noModificado.build());
+        }
+
+        return asincrono.ejecutar(() -> listarPorRango(start, size, cursor, ordenarPor, filtro, campos, etag));
+    }
+
+    private Response listarPorRango(int start, int size, String cursor, String ordenarPor,
+                                    Filtro filtro, List<String> campos, EntityTag etag) {
+        try {
+            if (campos != null) {
+                List<Map<String, Object>> filas = getService().findProyeccion(campos, filtro, start, size);
+                if (filtro != null) {
+                    return Response.ok(filas)
+                            .tag(etagSiPrincipal(etag))
+                            .header("Total-Records", getService().contarFiltrado(filtro))
+                            .header("Total-Records-Type", EstrategiaConteo.EXACTO.getValorHeader())
+                            .build();
+                }
+                Conteo total = getService().contar();
+                return Response.ok(filas)
+                        .tag(etagSiPrincipal(etag))
+                        .header("Total-Records", total.getTotal())
+                        .header("Total-Records-Type", total.getTipo().getValorHeader())
                         .build();
             }
-            List<T> entities = new ArrayList<>(getService().findRange(start, size));
-            int total = getService().count();
-            return Response.ok(entities).header("Total-Records", total).build();
+            if (filtro != null) {
+                List<T> entities = new ArrayList<>(getService().findFiltrado(filtro, start, size, getGrafoLista()));
+                return Response.ok(entities)
+                        .tag(etagSiPrincipal(etag))
+                        .header("Total-Records", getService().contarFiltrado(filtro))
+                        .header("Total-Records-Type", EstrategiaConteo.EXACTO.getValorHeader())
+                        .build();
+            }
+            if (start > 0) {
+                List<T> entities = new ArrayList<>(getService().findRange(start, size, getGrafoLista()));
+                Conteo total = getService().contar();
+                return Response.ok(entities)
+                        .tag(etagSiPrincipal(etag))
+                        .header("Total-Records", total.getTotal())
+                        .header("Total-Records-Type", total.getTipo().getValorHeader())
+                        .build();
+            }
+
+            Pagina<T> pagina = getService().findRangeKeyset(ordenarPor, cursor, size, getGrafoLista());
+            Conteo total = getService().contar();
+            Response.ResponseBuilder builder = Response.ok(new ArrayList<>(pagina.getElementos()))
+                    .tag(etagSiPrincipal(etag))
+                    .header("Total-Records", total.getTotal())
+                    .header("Total-Records-Type", total.getTipo().getValorHeader());
+            if (pagina.getSiguienteCursor() != null) {
+                builder.header("Next-Cursor", pagina.getSiguienteCursor());
+            }
+            return builder.build();
+        } catch (ConsultaInvalidaException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(cuerpoError(e.getMessage()))
+                    .build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error al listar entidades por rango", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -183,4 +756,203 @@ public abstract class AbstractCrudResource<T, ID> {
                     .build();
         }
     }
+
+    /**
+     * Búsqueda de texto completo paginada por cursor (ver AbstractDataPersistence.buscarTexto).
+     * Los recursos cuyo DAO define una columna de búsqueda la exponen en GET /buscar.
+     * La página siguiente se indica en el header Next-Cursor.
+     */
+    protected CompletionStage<Response> responderBusqueda(String texto, String cursor, int size) {
+        if (texto == null || texto.isBlank() || size <= 0) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"Se requiere el parámetro q y un tamaño de página positivo\"}")
+                    .build());
+        }
+        EntityTag etag = etagListado();
+        Response.ResponseBuilder noModificado = request.evaluatePreconditions(etag);
+        if (noModificado != null) {
+            return CompletableFuture.completedFuture(noModificado.build());
+        }
+
+        return asincrono.ejecutar(() -> {
+            try {
+                Pagina<T> pagina = getService().buscarTexto(texto, cursor, size, getGrafoLista());
+                Response.ResponseBuilder builder = Response.ok(new ArrayList<>(pagina.getElementos()))
+                        .tag(etagSiPrincipal(etag));
+                if (pagina.getSiguienteCursor() != null) {
+                    builder.header("Next-Cursor", pagina.getSiguienteCursor());
+                }
+                return builder.build();
+            } catch (ConsultaInvalidaException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(cuerpoError(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error al buscar entidades", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\":\"Error interno al buscar\"}")
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * Campos de ?fields=a,b,c sin espacios ni vacíos, o null si no se pidió una proyección.
+     */
+    private static List<String> campos(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        List<String> campos = new ArrayList<>();
+        for (String campo : fields.split(",")) {
+            String limpio = campo.trim();
+            if (!limpio.isEmpty()) {
+                campos.add(limpio);
+            }
+        }
+        return campos.isEmpty() ? null : campos;
+    }
+
+    /**
+     * ObjectMapper configurado en ObjectMapperProvider, para serializar fuera de Jersey.
+     */
+    protected ObjectMapper getObjectMapper() {
+        ContextResolver<ObjectMapper> resolver =
+                providers.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE);
+        return resolver != null
+                ? resolver.getContext(ObjectMapper.class)
+                : new ObjectMapperProvider().getContext(ObjectMapper.class);
+    }
+
+    /**
+     * ETag de los listados: marca de cambios de la tabla y de las tablas incluidas en el JSON.
+     * La misma URL con la misma marca produce la misma respuesta.
+     */
+    private EntityTag etagListado() {
+        return new EntityTag("t" + MarcaCambios.valor(getService().getTipoDato()) + marcasIncluidas());
+    }
+
+    /**
+     * El ETag si la respuesta se armó con datos del principal, o null (sin ETag) si alguna
+     * lectura vino de la réplica: las marcas de cambios son del principal y la réplica puede
+     * ir atrasada, así que el cliente guardaría filas viejas bajo la marca vigente.
+     * Solo vale dentro de la tarea de EjecutorAsincrono, después de leer.
+     */
+    static EntityTag etagSiPrincipal(EntityTag etag) {
+        return ModoLectura.leyoDeReplica() ? null : etag;
+    }
+
+    /**
+     * ETag de una entidad: su @Version seguida de las marcas de las tablas incluidas.
+     * If-Match solo compara la parte de la versión (ver versionIfMatch).
+     */
+    private EntityTag etagEntidad(Long version) {
+        return new EntityTag(version + marcasIncluidas());
+    }
+
+    private String marcasIncluidas() {
+        StringBuilder sb = new StringBuilder();
+        for (Class<?> tipo : getTiposIncluidos()) {
+            sb.append('-').append(MarcaCambios.valor(tipo));
+        }
+        return sb.toString();
+    }
+
+    private static Long version(Object entity) {
+        return entity instanceof Versionado versionado ? versionado.getVersion() : null;
+    }
+
+    /**
+     * Versión indicada en If-Match (solo la parte de la versión del ETag).
+     * @return la versión, o null si no hay If-Match o es "*".
+     */
+    private Long versionIfMatch() {
+        return versionIfMatch(headers);
+    }
+
+    /**
+     * Como versionIfMatch(), para los recursos que no extienden esta clase.
+     * Se llama en el hilo de la petición.
+     */
+    static Long versionIfMatch(HttpHeaders headers) {
+        String ifMatch = headers.getHeaderString(HttpHeaders.IF_MATCH);
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.split(",")[0].trim();
+        if (etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        etag = etag.replace("\"", "");
+        int guion = etag.indexOf('-');
+        try {
+            return Long.valueOf(guion >= 0 ? etag.substring(0, guion) : etag);
+        } catch (NumberFormatException e) {
+            return -1L; // ETag ajeno: ninguna versión coincide y se responde 412
+        }
+    }
+
+    /**
+     * Comparación débil de If-None-Match con el ETag, para evaluarla dentro de una tarea
+     * asíncrona, donde el Request de JAX-RS ya no está disponible.
+     */
+    private static boolean coincideIfNoneMatch(String ifNoneMatch, EntityTag etag) {
+        for (String valor : ifNoneMatch.split(",")) {
+            String candidato = valor.trim();
+            if (candidato.equals("*")) {
+                return true;
+            }
+            if (candidato.startsWith("W/")) {
+                candidato = candidato.substring(2);
+            }
+            if (candidato.equals("\"" + etag.getValue() + "\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * El DAO y el contenedor EJB envuelven la OptimisticLockException; se busca en las causas.
+     */
+    private static boolean esConflictoDeVersion(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof OptimisticLockException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cuerpo JSON de una respuesta de error. Lo serializa Jackson, así que el mensaje puede
+     * llevar texto enviado por el cliente (filtros, ids) sin romper ni inyectar JSON.
+     */
+    protected static Map<String, String> cuerpoError(String mensaje) {
+        return Map.of("error", mensaje != null ? mensaje : "Solicitud inválida");
+    }
+
+    /**
+     * Conflicto con los datos existentes: una ConflictoException del DAO o la violación de un
+     * índice único (SQLState 23505), que llega envuelta por Hibernate y el contenedor EJB.
+     * @return el mensaje para el cliente, o null si el error no es un conflicto.
+     */
+    protected static String mensajeConflicto(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConflictoException) {
+                return causa.getMessage();
+            }
+            if (causa instanceof SQLException sql && ESTADO_VIOLACION_UNICA.equals(sql.getSQLState())) {
+                return "La operación choca con un registro existente";
+            }
+        }
+        return null;
+    }
+
+    private void invalidarCache(ID id) {
+        if (id != null) {
+            cacheJson.invalidar(getService().getTipoDato(), id);
+        }
+        getTiposQueLaIncluyen().forEach(cacheJson::invalidarTipo);
+    }
 }
\ No newline at end of file
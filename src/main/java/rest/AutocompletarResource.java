@@ -0,0 +1,40 @@
+package rest;
+
+import control.IndiceNombres;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Sugerencias mientras se escribe, para nombres de mascotas y propietarios o el DUI.
+ * Se responden desde el índice en memoria (IndiceNombres), sin consultar la base.
+ */
+@Path("/autocompletar")
+@Produces(MediaType.APPLICATION_JSON)
+public class AutocompletarResource {
+
+    @Inject
+    private IndiceNombres indiceNombres;
+
+    /**
+     * @param q     texto escrito; cada palabra se busca como prefijo, sin distinguir tildes ni mayúsculas.
+     * @param tipo  "mascota", "propietario" u omitido para ambos.
+     */
+    @GET
+    public Response autocompletar(@QueryParam("q") String q,
+                                  @QueryParam("tipo") String tipo,
+                                  @QueryParam("limite") @DefaultValue("10") int limite) {
+        if (q == null || q.isBlank() || limite <= 0
+                || (tipo != null && !IndiceNombres.MASCOTA.equals(tipo) && !IndiceNombres.PROPIETARIO.equals(tipo))) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"Se requiere q; tipo debe ser mascota o propietario\"}")
+                    .build();
+        }
+        return Response.ok(indiceNombres.sugerir(q, tipo, limite)).build();
+    }
+}
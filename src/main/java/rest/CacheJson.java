@@ -0,0 +1,137 @@
+package rest;
+
+import control.Transacciones;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Caché LRU de respuestas JSON ya serializadas, por tipo de entidad e ID.
+ * Evita repetir Jackson (identidades, referencias administradas) en cada /obtener/{id}.
+ * El total de bytes guardados está acotado por mascotas.cache.json.max-bytes.
+ * Invalidar un tipo completo no recorre la caché: sube la época del tipo y las entradas de
+ * épocas anteriores se descartan al leerlas o salen por LRU.
+ */
+@ApplicationScoped
+public class CacheJson {
+
+    private static final Logger LOG = Logger.getLogger(CacheJson.class.getName());
+
+    @Inject
+    @ConfigProperty(name = "mascotas.cache.json.max-bytes", defaultValue = "16777216")
+    long maxBytes;
+
+    @Resource
+    private TransactionSynchronizationRegistry transacciones;
+
+    private record Clave(Class<?> tipo, Object id) {
+    }
+
+    /**
+     * JSON serializado y el ETag con el que se entregó.
+     */
+    public record Entrada(byte[] json, String etag) {
+    }
+
+    private record Guardada(Entrada entrada, long epoca) {
+    }
+
+    // accessOrder = true: el primer elemento es el usado menos recientemente
+    private final LinkedHashMap<Clave, Guardada> entradas = new LinkedHashMap<>(256, 0.75f, true);
+
+    // Cambia con cada invalidación de un tipo; evita guardar un JSON leído antes de una escritura
+    private final Map<Class<?>, Long> generaciones = new HashMap<>();
+
+    // Cambia solo con invalidarTipo(); una entrada de una época anterior ya no es válida
+    private final Map<Class<?>, Long> epocas = new HashMap<>();
+
+    private long bytesUsados;
+
+    @PostConstruct
+    void init() {
+        LOG.info("Caché de JSON con presupuesto de " + maxBytes + " bytes");
+    }
+
+    public synchronized Entrada obtener(Class<?> tipo, Object id) {
+        Clave clave = new Clave(tipo, id);
+        Guardada guardada = entradas.get(clave);
+        if (guardada == null) {
+            return null;
+        }
+        if (guardada.epoca() != epocas.getOrDefault(tipo, 0L)) {
+            entradas.remove(clave);
+            bytesUsados -= guardada.entrada().json().length;
+            return null;
+        }
+        return guardada.entrada();
+    }
+
+    /**
+     * Generación actual del tipo; se debe leer antes de consultar la base y pasarla a guardar().
+     */
+    public synchronized long generacion(Class<?> tipo) {
+        return generaciones.getOrDefault(tipo, 0L);
+    }
+
+    /**
+     * Guarda el JSON si el tipo no fue invalidado desde que se leyó la generación.
+     * Los JSON que superan una octava parte del presupuesto no se guardan.
+     */
+    public synchronized void guardar(Class<?> tipo, Object id, byte[] json, String etag, long generacion) {
+        if (json.length > maxBytes / 8 || generacion != generacion(tipo)) {
+            return;
+        }
+        Guardada anterior = entradas.put(new Clave(tipo, id),
+                new Guardada(new Entrada(json, etag), epocas.getOrDefault(tipo, 0L)));
+        bytesUsados += json.length - (anterior != null ? anterior.entrada().json().length : 0);
+
+        Iterator<Guardada> lru = entradas.values().iterator();
+        while (bytesUsados > maxBytes && lru.hasNext()) {
+            bytesUsados -= lru.next().entrada().json().length;
+            lru.remove();
+        }
+    }
+
+    /**
+     * Descarta el JSON de una entidad. Dentro de una transacción se vuelve a descartar al
+     * terminar, por si una lectura concurrente guardó el estado previo al commit.
+     */
+    public void invalidar(Class<?> tipo, Object id) {
+        quitar(tipo, id);
+        alTerminarTransaccion(() -> quitar(tipo, id));
+    }
+
+    /**
+     * Descarta todas las entradas de un tipo (por ejemplo, cuando cambia una entidad que aparece dentro de su JSON).
+     */
+    public void invalidarTipo(Class<?> tipo) {
+        quitarTipo(tipo);
+        alTerminarTransaccion(() -> quitarTipo(tipo));
+    }
+
+    private void alTerminarTransaccion(Runnable accion) {
+        Transacciones.alTerminar(transacciones, status -> accion.run());
+    }
+
+    private synchronized void quitar(Class<?> tipo, Object id) {
+        generaciones.merge(tipo, 1L, Long::sum);
+        Guardada anterior = entradas.remove(new Clave(tipo, id));
+        if (anterior != null) {
+            bytesUsados -= anterior.entrada().json().length;
+        }
+    }
+
+    private synchronized void quitarTipo(Class<?> tipo) {
+        generaciones.merge(tipo, 1L, Long::sum);
+        epocas.merge(tipo, 1L, Long::sum);
+    }
+}
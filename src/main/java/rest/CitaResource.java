@@ -2,16 +2,40 @@ package rest;
 
 import control.AbstractDataPersistence;
 import control.CitaDAO;
+import control.ConsultaInvalidaException;
 import entity.Cita;
+import entity.Mascota;
+import entity.Usuario;
 import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 @Path("/citas") // La ruta base se define aquí, en la clase concreta
 public class CitaResource extends AbstractCrudResource<Cita, Integer> {
 
+    private static final Logger LOG = Logger.getLogger(CitaResource.class.getName());
+
     @Inject
     private CitaDAO citaDAO;
 
+    @Inject
+    private CacheJson cacheJson;
+
     @Override
     protected AbstractDataPersistence<Cita> getService() {
         return citaDAO;
@@ -27,6 +51,87 @@ public class CitaResource extends AbstractCrudResource<Cita, Integer> {
         entity.setId(id);
     }
 
+    @Override
+    protected String getGrafoLista() {
+        return CitaDAO.GRAFO_LISTA;
+    }
+
+    @Override
+    protected List<Class<?>> getTiposQueLaIncluyen() {
+        return List.of(Mascota.class); // el detalle de Mascota incluye sus citas
+    }
+
+    @Override
+    protected List<Class<?>> getTiposIncluidos() {
+        return List.of(Usuario.class); // veterinario
+    }
+
+    /**
+     * Turnos libres de un veterinario en una fecha, calculados desde la agenda en memoria.
+     */
+    @GET
+    @Path("/disponibilidad")
+    public Response disponibilidad(@QueryParam("veterinario") Integer veterinario,
+                                   @QueryParam("fecha") String fecha) {
+        try {
+            LocalDate dia = fecha != null ? LocalDate.parse(fecha) : null;
+            List<LocalTime> libres = citaDAO.disponibilidad(veterinario, dia);
+
+            Map<String, Object> cuerpo = new LinkedHashMap<>();
+            cuerpo.put("veterinario", veterinario);
+            cuerpo.put("fecha", fecha);
+            cuerpo.put("libres", libres.stream().map(LocalTime::toString).toList());
+            return Response.ok(cuerpo).build();
+        } catch (DateTimeParseException | ConsultaInvalidaException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"Se requieren veterinario y fecha (AAAA-MM-DD)\"}")
+                    .build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error al consultar la disponibilidad", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\":\"Error interno al consultar la disponibilidad\"}")
+                    .build();
+        }
+    }
+
+    /**
+     * Reserva atómica: comprueba y marca el turno del veterinario e inserta la cita.
+     * Responde 409 si el turno ya está ocupado.
+     */
+    @POST
+    @Path("/reservar")
+    @Transactional
+    public Response reservar(Cita cita, @Context UriInfo uriInfo) {
+        if (cita == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"La cita no puede ser nula\"}")
+                    .build();
+        }
+        try {
+            citaDAO.reservar(cita);
+            cacheJson.invalidarTipo(Mascota.class);
+            return Response.created(uriInfo.getBaseUriBuilder().path(CitaResource.class)
+                            .path("obtener").path(cita.getId().toString()).build())
+                    .entity(cita)
+                    .build();
+        } catch (ConsultaInvalidaException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(cuerpoError(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            String conflicto = mensajeConflicto(e);
+            if (conflicto != null) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity(cuerpoError(conflicto))
+                        .build();
+            }
+            LOG.log(Level.SEVERE, "Error al reservar la cita", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\":\"Error interno al reservar la cita\"}")
+                    .build();
+        }
+    }
+
     // ¡Y eso es todo!
     // Los endpoints /listar, /obtener/{id}, /crear, etc., son heredados.
     // Si necesitas un endpoint específico para Cita que no sea CRUD,
@@ -0,0 +1,24 @@
+package rest;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * Decisión de la petición actual sobre dónde leer: LecturaTrasEscrituraFilter la toma con
+ * la cookie del cliente y EjecutorAsincrono la aplica al pasar la tarea a ModoLectura.
+ */
+@RequestScoped
+public class ConsistenciaLectura {
+
+    private boolean primaria;
+
+    /**
+     * true si el cliente escribió hace poco y debe leer del principal para ver sus cambios.
+     */
+    public boolean isPrimaria() {
+        return primaria;
+    }
+
+    public void setPrimaria(boolean primaria) {
+        this.primaria = primaria;
+    }
+}
@@ -0,0 +1,137 @@
+package rest;
+
+import control.ModoLectura;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ContextService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ServiceUnavailableException;
+import monitoreo.ContadorSentencias;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Ejecuta en hilos virtuales el trabajo de los GET que esperan a la base, para que el hilo
+ * del servidor quede libre mientras tanto. Un semáforo del tamaño del pool de conexiones
+ * (maxPoolSize en server.xml) hace de bulkhead: las peticiones que no caben esperan en su
+ * hilo virtual, que no ocupa un hilo de plataforma, y tras mascotas.async.espera-ms se
+ * responden con 503 y Retry-After.
+ * Las tareas no deben usar los proxies @Context (Request, HttpHeaders): se resuelven en el hilo
+ * de la petición antes de llamar a ejecutar(). Las escrituras siguen siendo síncronas porque su
+ * transacción (@Transactional) está ligada al hilo del método de recurso; las tareas son solo
+ * lecturas y se ejecutan en ModoLectura.
+ */
+@ApplicationScoped
+public class EjecutorAsincrono {
+
+    private static final Logger LOG = Logger.getLogger(EjecutorAsincrono.class.getName());
+
+    private static final long REINTENTAR_SEGUNDOS = 1;
+
+    @Inject
+    @ConfigProperty(name = "mascotas.async.habilitado", defaultValue = "true")
+    boolean habilitado;
+
+    @Inject
+    @ConfigProperty(name = "mascotas.async.max-concurrencia", defaultValue = "50")
+    int maxConcurrencia;
+
+    @Inject
+    @ConfigProperty(name = "mascotas.async.espera-ms", defaultValue = "5000")
+    long esperaMs;
+
+    @Inject
+    private ConsistenciaLectura consistencia;
+
+    // Propaga el contexto de la aplicación (JNDI, cargador de clases, seguridad) al hilo virtual
+    @Resource
+    private ContextService contextos;
+
+    private ExecutorService virtuales;
+
+    private Semaphore permisos;
+
+    @PostConstruct
+    void init() {
+        virtuales = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("rest-async-", 0).factory());
+        permisos = new Semaphore(maxConcurrencia, true);
+        LOG.info("Ejecución asíncrona " + (habilitado ? "habilitada" : "deshabilitada")
+                + ", hasta " + maxConcurrencia + " tareas concurrentes");
+    }
+
+    @PreDestroy
+    void cerrar() {
+        virtuales.shutdownNow();
+    }
+
+    /**
+     * Ejecuta la tarea en el hilo actual dentro del bulkhead, para lo que no puede pasar a un hilo
+     * virtual (el streaming escribe en la salida de la petición). Deshabilitado, la ejecuta sin más.
+     * @throws ServiceUnavailableException si no obtuvo turno a tiempo.
+     */
+    public void enTurno(Runnable tarea) {
+        if (!habilitado) {
+            tarea.run();
+            return;
+        }
+        boolean conPermiso = false;
+        try {
+            conPermiso = permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+            if (!conPermiso) {
+                throw new ServiceUnavailableException(REINTENTAR_SEGUNDOS);
+            }
+            tarea.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException(REINTENTAR_SEGUNDOS);
+        } finally {
+            if (conPermiso) {
+                permisos.release();
+            }
+        }
+    }
+
+    /**
+     * Ejecuta la tarea de lectura en un hilo virtual dentro del bulkhead. Deshabilitado, la ejecuta en el hilo actual.
+     * @return etapa que termina con el resultado, o con ServiceUnavailableException si no obtuvo turno a tiempo.
+     */
+    public <R> CompletionStage<R> ejecutar(Supplier<R> tarea) {
+        boolean replica = !consistencia.isPrimaria(); // se lee en el hilo de la petición
+        Supplier<R> lectura = () -> ModoLectura.ejecutar(tarea, replica);
+        if (!habilitado) {
+            return CompletableFuture.completedFuture(lectura.get());
+        }
+
+        Supplier<R> contextual = contextos.contextualSupplier(lectura);
+        int[] sentencias = ContadorSentencias.soltar(); // se sigue contando en el hilo virtual
+        return CompletableFuture.supplyAsync(() -> {
+            boolean conPermiso = false;
+            try {
+                conPermiso = permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+                if (!conPermiso) {
+                    throw new ServiceUnavailableException(REINTENTAR_SEGUNDOS);
+                }
+                ContadorSentencias.asociar(sentencias);
+                return contextual.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceUnavailableException(REINTENTAR_SEGUNDOS);
+            } finally {
+                ContadorSentencias.asociar(null);
+                if (conPermiso) {
+                    permisos.release();
+                }
+            }
+        }, virtuales);
+    }
+}
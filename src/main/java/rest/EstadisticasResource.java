@@ -0,0 +1,74 @@
+package rest;
+
+import control.EstadisticasDAO;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import monitoreo.RegistroSentencias;
+
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Endpoints de diagnóstico para dimensionar cachés y detectar regresiones.
+ */
+@Path("/estadisticas")
+@Produces(MediaType.APPLICATION_JSON)
+public class EstadisticasResource {
+
+    private static final Logger LOG = Logger.getLogger(EstadisticasResource.class.getName());
+
+    @Inject
+    private EstadisticasDAO estadisticasDAO;
+
+    // Aciertos y fallos por región de la caché de segundo nivel
+    @GET
+    @Path("/cache")
+    public Response cache() {
+        try {
+            return Response.ok(estadisticasDAO.estadisticasCache()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error al obtener estadísticas de caché", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\":\"Error interno al obtener estadísticas de caché\"}")
+                    .build();
+        }
+    }
+
+    // Sentencias SQL agrupadas por huella: las n primeras por tiempo total, máximo, conteo o promedio
+    @GET
+    @Path("/sentencias")
+    public Response sentencias(@QueryParam("top") @DefaultValue("20") int top,
+                               @QueryParam("orden") @DefaultValue("total") String orden) {
+        RegistroSentencias.Orden criterio;
+        try {
+            criterio = RegistroSentencias.Orden.valueOf(orden.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            criterio = null;
+        }
+        if (criterio == null || top <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"orden debe ser total, maximo, conteo o promedio y top positivo\"}")
+                    .build();
+        }
+        RegistroSentencias registro = RegistroSentencias.instancia();
+        return Response.ok(registro.top(top, criterio))
+                .header("Log-Descartadas", registro.getDescartadas())
+                .build();
+    }
+
+    // Reinicia las estadísticas de sentencias (por ejemplo, antes de una prueba de carga)
+    @DELETE
+    @Path("/sentencias")
+    public Response reiniciarSentencias() {
+        RegistroSentencias.instancia().reiniciar();
+        return Response.noContent().build();
+    }
+}
@@ -0,0 +1,88 @@
+package rest;
+
+import control.ConsultaInvalidaException;
+import control.HistorialMedicoDAO;
+import control.MarcaCambios;
+import control.Pagina;
+import entity.HistorialMedico;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Solo lectura del historial clínico: la búsqueda por texto. No extiende AbstractCrudResource
+ * porque el historial no se crea ni se modifica por la API (su ID no es generado por la
+ * aplicación y la mascota dueña no viaja en el JSON).
+ */
+@Path("/historial")
+@Produces(MediaType.APPLICATION_JSON)
+public class HistorialResource {
+
+    private static final Logger LOG = Logger.getLogger(HistorialResource.class.getName());
+
+    @Inject
+    private HistorialMedicoDAO historialMedicoDAO;
+
+    @Inject
+    private EjecutorAsincrono asincrono;
+
+    @Context
+    private Request request;
+
+    /**
+     * Búsqueda por palabras clave en diagnóstico, tratamiento y observaciones, ordenada por relevancia
+     * (el diagnóstico pesa más que el tratamiento, y este más que las observaciones).
+     * La página siguiente se indica en el header Next-Cursor.
+     */
+    @GET
+    @Path("/buscar")
+    public CompletionStage<Response> buscar(@QueryParam("q") String q,
+                                            @QueryParam("cursor") String cursor,
+                                            @QueryParam("size") @DefaultValue("20") int size) {
+        if (q == null || q.isBlank() || size <= 0) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"Se requiere el parámetro q y un tamaño de página positivo\"}")
+                    .build());
+        }
+        EntityTag etag = new EntityTag("t" + MarcaCambios.valor(HistorialMedico.class));
+        Response.ResponseBuilder noModificado = request.evaluatePreconditions(etag);
+        if (noModificado != null) {
+            return CompletableFuture.completedFuture(noModificado.build());
+        }
+
+        return asincrono.ejecutar(() -> {
+            try {
+                Pagina<HistorialMedico> pagina = historialMedicoDAO.buscarTexto(q, cursor, size, null);
+                Response.ResponseBuilder builder = Response.ok(new ArrayList<>(pagina.getElementos()))
+                        .tag(AbstractCrudResource.etagSiPrincipal(etag));
+                if (pagina.getSiguienteCursor() != null) {
+                    builder.header("Next-Cursor", pagina.getSiguienteCursor());
+                }
+                return builder.build();
+            } catch (ConsultaInvalidaException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(AbstractCrudResource.cuerpoError(e.getMessage()))
+                        .build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error al buscar en el historial", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\":\"Error interno al buscar\"}")
+                        .build();
+            }
+        });
+    }
+}
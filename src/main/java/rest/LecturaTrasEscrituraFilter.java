@@ -0,0 +1,79 @@
+package rest;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.NewCookie;
+import jakarta.ws.rs.ext.Provider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Optional;
+
+/**
+ * Lectura de las propias escrituras con réplica: tras una escritura correcta el cliente recibe
+ * la cookie mascotas-escritura con la hora, y sus GET leen del principal durante
+ * mascotas.replica.ventana-s segundos (5 por defecto), el margen para que la réplica se ponga
+ * al día. Sin mascotas.replica.jndi no hace nada.
+ */
+@Provider
+@Priority(Priorities.USER)
+public class LecturaTrasEscrituraFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String COOKIE = "mascotas-escritura";
+
+    @Inject
+    @ConfigProperty(name = "mascotas.replica.jndi")
+    Optional<String> replica;
+
+    @Inject
+    @ConfigProperty(name = "mascotas.replica.ventana-s", defaultValue = "5")
+    int ventanaSegundos;
+
+    @Inject
+    private ConsistenciaLectura consistencia;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        if (replica.isEmpty() || !esLectura(request.getMethod())) {
+            return;
+        }
+        Cookie cookie = request.getCookies().get(COOKIE);
+        if (cookie == null) {
+            return;
+        }
+        try {
+            long escritura = Long.parseLong(cookie.getValue());
+            consistencia.setPrimaria(System.currentTimeMillis() - escritura < ventanaSegundos * 1000L);
+        } catch (NumberFormatException e) {
+            // cookie ajena o alterada: se lee de la réplica
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (replica.isEmpty() || ventanaSegundos <= 0
+                || esLectura(request.getMethod()) || HttpMethod.OPTIONS.equals(request.getMethod())
+                || response.getStatus() >= 400
+                || request.getUriInfo().getPath().endsWith("usuarios/login")) {
+            return;
+        }
+        NewCookie cookie = new NewCookie.Builder(COOKIE)
+                .value(String.valueOf(System.currentTimeMillis()))
+                .path("/")
+                .maxAge(ventanaSegundos)
+                .httpOnly(true)
+                .build();
+        response.getHeaders().add(HttpHeaders.SET_COOKIE, cookie);
+    }
+
+    private static boolean esLectura(String metodo) {
+        return HttpMethod.GET.equals(metodo) || HttpMethod.HEAD.equals(metodo);
+    }
+}
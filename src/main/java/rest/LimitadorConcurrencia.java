@@ -0,0 +1,211 @@
+package rest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Límites de concurrencia adaptativos por clase de petición (lecturas, escrituras y login),
+ * que aplica LimiteConcurrenciaFilter. Cada límite sigue el algoritmo de gradiente: compara
+ * la latencia reciente con la de largo plazo y lo reduce cuando la base empieza a encolar
+ * (la latencia sube sin que suba el rendimiento) o lo deja crecer cuando se mantiene.
+ * Configuración (MicroProfile Config):
+ * <ul>
+ *   <li>mascotas.limite.habilitado: true por defecto.</li>
+ *   <li>mascotas.limite.&lt;clase&gt;.inicial, .minimo y .maximo, con clase lectura, escritura o login.</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class LimitadorConcurrencia {
+
+    private static final Logger LOG = Logger.getLogger(LimitadorConcurrencia.class.getName());
+
+    /**
+     * Clases de petición con límites independientes: un login lento no frena los listados
+     * y las escrituras no se quedan sin turno detrás de las lecturas.
+     */
+    public enum Clase {
+        LECTURA(20, 5, 200),
+        ESCRITURA(10, 2, 50),
+        LOGIN(4, 1, 20);
+
+        private final int inicial;
+        private final int minimo;
+        private final int maximo;
+
+        Clase(int inicial, int minimo, int maximo) {
+            this.inicial = inicial;
+            this.minimo = minimo;
+            this.maximo = maximo;
+        }
+
+        String getNombre() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Metadata LIMITE = Metadata.builder()
+            .withName("mascotas.limite.actual")
+            .withDescription("Peticiones concurrentes admitidas por clase")
+            .build();
+
+    private static final Metadata EN_VUELO = Metadata.builder()
+            .withName("mascotas.limite.en.vuelo")
+            .withDescription("Peticiones en curso por clase")
+            .build();
+
+    private static final Metadata RECHAZOS = Metadata.builder()
+            .withName("mascotas.limite.rechazos")
+            .withDescription("Peticiones rechazadas con 503 por superar el límite")
+            .build();
+
+    @Inject
+    @ConfigProperty(name = "mascotas.limite.habilitado", defaultValue = "true")
+    boolean habilitado;
+
+    @Inject
+    private Config config;
+
+    @Inject
+    private MetricRegistry registry;
+
+    private final Map<Clase, Limite> limites = new EnumMap<>(Clase.class);
+
+    @PostConstruct
+    void init() {
+        for (Clase clase : Clase.values()) {
+            String prefijo = "mascotas.limite." + clase.getNombre();
+            int minimo = config.getOptionalValue(prefijo + ".minimo", Integer.class).orElse(clase.minimo);
+            int maximo = config.getOptionalValue(prefijo + ".maximo", Integer.class).orElse(clase.maximo);
+            int inicial = config.getOptionalValue(prefijo + ".inicial", Integer.class).orElse(clase.inicial);
+            Limite limite = new Limite(Math.max(minimo, Math.min(maximo, inicial)), minimo, maximo);
+            limites.put(clase, limite);
+
+            Tag tag = new Tag("clase", clase.getNombre());
+            registry.gauge(LIMITE, limite, Limite::getLimite, tag);
+            registry.gauge(EN_VUELO, limite, Limite::getEnVuelo, tag);
+        }
+        LOG.info("Límite de concurrencia adaptativo " + (habilitado ? "habilitado" : "deshabilitado"));
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public Limite limite(Clase clase) {
+        return limites.get(clase);
+    }
+
+    void rechazada(Clase clase) {
+        registry.counter(RECHAZOS, new Tag("clase", clase.getNombre())).inc();
+    }
+
+    /**
+     * Límite de una clase: cuenta las peticiones en curso y ajusta el máximo con cada respuesta.
+     */
+    public static final class Limite {
+
+        // Ventanas de las medias móviles de latencia, en muestras
+        private static final double ALFA_CORTO = 2.0 / (10 + 1);
+        private static final double ALFA_LARGO = 2.0 / (600 + 1);
+
+        // Latencia reciente tolerada respecto de la de largo plazo antes de reducir el límite
+        private static final double TOLERANCIA = 1.5;
+
+        private static final double SUAVIZADO = 0.2;
+
+        // Reducción ante una petición que no obtuvo conexión a tiempo (503 del bulkhead)
+        private static final double REDUCCION_DESCARTE = 0.9;
+
+        private final int minimo;
+
+        private final int maximo;
+
+        private final AtomicInteger enVuelo = new AtomicInteger();
+
+        private volatile int limite;
+
+        // Estado del algoritmo, protegido por el monitor del objeto
+        private double estimado;
+        private double rttCorto;
+        private double rttLargo;
+        private boolean conMuestras;
+
+        Limite(int inicial, int minimo, int maximo) {
+            this.minimo = minimo;
+            this.maximo = maximo;
+            this.limite = inicial;
+            this.estimado = inicial;
+        }
+
+        /**
+         * Ocupa un lugar si hay por debajo del límite; no espera.
+         */
+        public boolean adquirir() {
+            while (true) {
+                int actual = enVuelo.get();
+                if (actual >= limite) {
+                    return false;
+                }
+                if (enVuelo.compareAndSet(actual, actual + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Libera el lugar y ajusta el límite con la latencia observada.
+         * @param descartada la petición no llegó a ejecutarse por falta de conexión: cuenta como congestión.
+         */
+        public void liberar(long rttNanos, boolean descartada) {
+            int enVueloAlTerminar = enVuelo.getAndDecrement();
+            synchronized (this) {
+                if (descartada) {
+                    ajustar(estimado * REDUCCION_DESCARTE);
+                    return;
+                }
+                if (!conMuestras) {
+                    rttCorto = rttNanos;
+                    rttLargo = rttNanos;
+                    conMuestras = true;
+                    return;
+                }
+                rttCorto += (rttNanos - rttCorto) * ALFA_CORTO;
+                rttLargo += (rttNanos - rttLargo) * ALFA_LARGO;
+                if (rttLargo / rttCorto > 2) {
+                    rttLargo *= 0.95; // tras una racha lenta, la referencia vuelve hacia la latencia actual
+                }
+                if (enVueloAlTerminar < estimado / 2) {
+                    return; // con poca carga la latencia no dice nada del límite
+                }
+                double gradiente = Math.max(0.5, Math.min(1.0, TOLERANCIA * rttLargo / rttCorto));
+                double nuevo = estimado * gradiente + Math.sqrt(estimado);
+                ajustar(estimado * (1 - SUAVIZADO) + nuevo * SUAVIZADO);
+            }
+        }
+
+        private void ajustar(double nuevo) {
+            estimado = Math.max(minimo, Math.min(maximo, nuevo));
+            limite = (int) estimado;
+        }
+
+        public int getLimite() {
+            return limite;
+        }
+
+        public int getEnVuelo() {
+            return enVuelo.get();
+        }
+    }
+}
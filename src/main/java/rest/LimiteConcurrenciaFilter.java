@@ -0,0 +1,126 @@
+package rest;
+
+import jakarta.inject.Inject;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Descarta carga antes de llegar a los DAOs: si la clase de la petición (lectura, escritura o
+ * login) ya tiene su límite de peticiones en curso, responde 503 con Retry-After en lugar de
+ * encolarla. La latencia de cada petición admitida ajusta el límite (ver LimitadorConcurrencia).
+ * Es un filtro de servlet y no de JAX-RS para que el lugar se libere siempre: al volver de la
+ * cadena (también con una excepción sin mapear y después de escribir un StreamingOutput) o,
+ * en las respuestas asíncronas, al completarse el AsyncContext.
+ * Se ejecuta antes que MetricasFilter, así que los rechazos no cuentan en la latencia por endpoint.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class LimiteConcurrenciaFilter implements Filter {
+
+    private static final int REINTENTAR_SEGUNDOS = 1;
+
+    /**
+     * Lugar ocupado por una petición; se libera una sola vez aunque la avisen la cadena y el AsyncListener.
+     */
+    private static final class Permiso {
+        private final LimitadorConcurrencia.Limite limite;
+        private final long inicio = System.nanoTime();
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        Permiso(LimitadorConcurrencia.Limite limite) {
+            this.limite = limite;
+        }
+
+        void liberar(int status) {
+            if (liberado.compareAndSet(false, true)) {
+                // Un 503 aquí viene del bulkhead de EjecutorAsincrono: no hubo conexión a tiempo
+                limite.liberar(System.nanoTime() - inicio, status == HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+        }
+    }
+
+    @Inject
+    private LimitadorConcurrencia limitador;
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+        if (!(req instanceof HttpServletRequest request) || !(res instanceof HttpServletResponse response)
+                || !limitador.isHabilitado() || HttpMethod.OPTIONS.equals(request.getMethod())) {
+            chain.doFilter(req, res); // los preflight de CORS no tocan la base
+            return;
+        }
+        LimitadorConcurrencia.Clase clase = clasificar(request);
+        LimitadorConcurrencia.Limite limite = limitador.limite(clase);
+        if (!limite.adquirir()) {
+            limitador.rechazada(clase);
+            rechazar(response);
+            return;
+        }
+
+        Permiso permiso = new Permiso(limite);
+        boolean asincrona = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // El AsyncContext no se completa antes de que vuelva este despacho: el listener no se pierde
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        permiso.liberar(((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+                asincrona = true;
+            }
+        } finally {
+            if (!asincrona) {
+                permiso.liberar(response.getStatus());
+            }
+        }
+    }
+
+    private static void rechazar(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(REINTENTAR_SEGUNDOS));
+        // La respuesta no pasa por CorsFilter (JAX-RS): el navegador debe poder leer el 503
+        response.setHeader("Access-Control-Allow-Origin", "*");
+        response.setHeader("Access-Control-Expose-Headers", HttpHeaders.RETRY_AFTER);
+        response.setContentType(MediaType.APPLICATION_JSON);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"Servidor saturado, reintente más tarde\"}");
+    }
+
+    private static LimitadorConcurrencia.Clase clasificar(HttpServletRequest request) {
+        if (request.getRequestURI().endsWith("/usuarios/login")) {
+            return LimitadorConcurrencia.Clase.LOGIN;
+        }
+        String metodo = request.getMethod();
+        return HttpMethod.GET.equals(metodo) || HttpMethod.HEAD.equals(metodo)
+                ? LimitadorConcurrencia.Clase.LECTURA
+                : LimitadorConcurrencia.Clase.ESCRITURA;
+    }
+}
@@ -3,12 +3,23 @@ package rest;
 
 import control.AbstractDataPersistence;
 import control.MascotaDAO;
+import entity.Cita;
+import entity.HistorialMedico;
 import entity.Mascota;
+import entity.Usuario;
+import entity.Vacuna;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 @Path("/mascotas") // La ruta base se define aquí, en la clase concreta
 @Produces(MediaType.APPLICATION_JSON)
@@ -34,5 +45,36 @@ public class MascotasResource  extends AbstractCrudResource<Mascota, Integer> {
         entity.setId(id);
     }
 
+    @Override
+    protected String getGrafoLista() {
+        return MascotaDAO.GRAFO_LISTA;
+    }
+
+    @Override
+    protected String getGrafoDetalle() {
+        return MascotaDAO.GRAFO_DETALLE;
+    }
+
+    @Override
+    protected List<Class<?>> getTiposDependientes() {
+        return List.of(Cita.class, HistorialMedico.class); // se borran en cascada con la mascota
+    }
+
+    @Override
+    protected List<Class<?>> getTiposIncluidos() {
+        return List.of(Cita.class, Vacuna.class, HistorialMedico.class, Usuario.class);
+    }
+
+    /**
+     * Búsqueda por palabras clave en las observaciones de la mascota, ordenada por relevancia.
+     */
+    @GET
+    @Path("/buscar")
+    public CompletionStage<Response> buscar(@QueryParam("q") String q,
+                                            @QueryParam("cursor") String cursor,
+                                            @QueryParam("size") @DefaultValue("20") int size) {
+        return responderBusqueda(q, cursor, size);
+    }
+
 
 }
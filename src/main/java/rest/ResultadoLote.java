@@ -0,0 +1,37 @@
+package rest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+/**
+ * Resultado de un elemento dentro de una petición /crear/lote.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoLote {
+
+    /** Posición del elemento en el arreglo recibido. */
+    private final int indice;
+
+    /** "creado" o "error". */
+    private final String estado;
+
+    private final Object id;
+
+    private final String error;
+
+    private ResultadoLote(int indice, String estado, Object id, String error) {
+        this.indice = indice;
+        this.estado = estado;
+        this.id = id;
+        this.error = error;
+    }
+
+    public static ResultadoLote creado(int indice, Object id) {
+        return new ResultadoLote(indice, "creado", id, null);
+    }
+
+    public static ResultadoLote error(int indice, String error) {
+        return new ResultadoLote(indice, "error", null, error);
+    }
+}
@@ -1,12 +1,21 @@
 package rest;
 
+import control.ConsultaInvalidaException;
+import control.Conteo;
+import control.Pagina;
 import control.UsuariosDAO;
+import entity.Cita;
+import entity.HistorialMedico;
+import entity.Mascota;
 import entity.Usuario;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.*;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,6 +29,15 @@ public class UsuarioResource {
     @Inject
     private UsuariosDAO usuariosDAO;
 
+    @Inject
+    private CacheJson cacheJson;
+
+    @Inject
+    private EjecutorAsincrono asincrono;
+
+    @Context
+    private HttpHeaders headers;
+
     private static final Logger LOG = Logger.getLogger(UsuarioResource.class.getName());
 
 
@@ -57,33 +75,57 @@ public class UsuarioResource {
     //para listar todas las citas con paginación
     @GET
     @Path("/listar")
-    public List<Usuario> listar() {
-        try {
-            return usuariosDAO.findAll();
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error al listar citas", e);
-            throw new WebApplicationException("Error interno al listar citas.", Response.Status.INTERNAL_SERVER_ERROR);
-        }
+    public CompletionStage<List<Usuario>> listar() {
+        return asincrono.ejecutar(() -> {
+            try {
+                return usuariosDAO.findAll();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error al listar citas", e);
+                throw new WebApplicationException("Error interno al listar citas.", Response.Status.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     @GET
     @Path("/listar/rango")
-    public Response listarCitas(@QueryParam("start") @DefaultValue("0") int start,
-                                @QueryParam("size") @DefaultValue("50") int size) {
+    public CompletionStage<Response> listarCitas(@QueryParam("start") @DefaultValue("0") int start,
+                                                 @QueryParam("size") @DefaultValue("50") int size,
+                                                 @QueryParam("cursor") String cursor,
+                                                 @QueryParam("ordenarPor") String ordenarPor) {
+        if (start < 0 || size <= 0 || (start > 0 && cursor != null)) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"Parámetros inválidos\"}")
+                    .type(MediaType.APPLICATION_JSON)
+                    .build());
+        }
+        return asincrono.ejecutar(() -> listarCitasPorRango(start, size, cursor, ordenarPor));
+    }
+
+    private Response listarCitasPorRango(int start, int size, String cursor, String ordenarPor) {
         try {
-            if (start < 0 || size <= 0) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("{\"error\":\"Parámetros inválidos\"}")
-                        .type(MediaType.APPLICATION_JSON)
-                        .build();
+            List<Usuario> lista;
+            String siguienteCursor = null;
+            if (start > 0) {
+                lista = usuariosDAO.findRange(start, size); // compatibilidad: paginación por OFFSET
+            } else {
+                Pagina<Usuario> pagina = usuariosDAO.findRangeKeyset(ordenarPor, cursor, size, null);
+                lista = pagina.getElementos();
+                siguienteCursor = pagina.getSiguienteCursor();
             }
-
-            List<Usuario> lista = usuariosDAO.findRange(start, size);
-            int total = usuariosDAO.count();
-
-            return Response.ok(lista)
-                    .header("Total-Records", total)
-                    .type(MediaType.APPLICATION_JSON) // 👈 asegura que sea JSON
+            Conteo total = usuariosDAO.contar();
+
+            Response.ResponseBuilder builder = Response.ok(lista)
+                    .header("Total-Records", total.getTotal())
+                    .header("Total-Records-Type", total.getTipo().getValorHeader())
+                    .type(MediaType.APPLICATION_JSON); // 👈 asegura que sea JSON
+            if (siguienteCursor != null) {
+                builder.header("Next-Cursor", siguienteCursor);
+            }
+            return builder.build();
+        } catch (ConsultaInvalidaException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"Cursor u orden inválido\"}")
+                    .type(MediaType.APPLICATION_JSON)
                     .build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error al listar citas por rango", e);
@@ -98,28 +140,30 @@ public class UsuarioResource {
 
     @GET
     @Path("/obtener/{id}")
-    public Response obtenerPorId(@PathParam("id") Integer id) {
+    public CompletionStage<Response> obtenerPorId(@PathParam("id") Integer id) {
         if (id == null) {
-            return Response.status(Response.Status.BAD_REQUEST)
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
                     .entity("ID no puede ser nulo.")
-                    .build();
+                    .build());
         }
 
-        try {
-            Usuario  obj = usuariosDAO.findById(id);
-            if (obj != null) {
-                return Response.ok(obj).build();
-            } else {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity("No se encontró una cita con id: " + id)
+        return asincrono.ejecutar(() -> {
+            try {
+                Usuario  obj = usuariosDAO.findById(id);
+                if (obj != null) {
+                    return Response.ok(obj).build();
+                } else {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("No se encontró una cita con id: " + id)
+                            .build();
+                }
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error al obtener cita por id", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error interno al obtener cita.")
                         .build();
             }
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error al obtener cita por id", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Error interno al obtener cita.")
-                    .build();
-        }
+        });
     }
 
 
@@ -135,8 +179,6 @@ public class UsuarioResource {
 
         try {
             usuariosDAO.create(obj);
-            System.out.println("ID generado: " + obj.getId()); // 👈 prueba real
-
 
             if (obj.getId() != null) {
                 UriBuilder uriBuilder = uriInfo.getAbsolutePathBuilder().path(obj.getId().toString());
@@ -151,7 +193,7 @@ public class UsuarioResource {
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error al crear usuario", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\":\"Error interno al crear usuario: " + e.getMessage() + "\"}")
+                    .entity(Map.of("error", "Error interno al crear usuario: " + e.getMessage()))
                     .type(MediaType.APPLICATION_JSON)
                     .build();
         }
@@ -164,26 +206,42 @@ public class UsuarioResource {
     public Response actualizarResponse(@PathParam("id") Integer id, Usuario obj) {
         if (id == null ||  obj == null) {
             return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("ID y cita no pueden ser nulos.")
+                    .entity("ID y usuario no pueden ser nulos.")
                     .build();
         }
 
         try {
-             Usuario existente = usuariosDAO.findById(id);
-            if (existente == null) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity("No se encontró cita con id: " + id)
+             obj.setId(id); // asegurarse que el ID sea el correcto
+            // Igual que AbstractCrudResource: If-Match tiene prioridad sobre la versión del cuerpo
+            Long versionEsperada = AbstractCrudResource.versionIfMatch(headers);
+            if (versionEsperada == null) {
+                versionEsperada = obj.getVersion();
+            }
+            // Un solo UPDATE por id y versión; 0 filas: no existe o la versión quedó atrasada
+            if (usuariosDAO.updateById(id, obj, versionEsperada) == 0) {
+                Long versionActual = usuariosDAO.findVersion(id);
+                if (versionActual == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("No se encontró usuario con id: " + id)
+                            .build();
+                }
+                return Response.status(Response.Status.PRECONDITION_FAILED)
+                        .entity("El usuario fue modificado por otro cliente.")
+                        .tag(new EntityTag(String.valueOf(versionActual)))
                         .build();
             }
+            Response.ResponseBuilder builder = Response.ok();
+            obj.setVersion(versionEsperada != null ? versionEsperada + 1 : null);
+            if (versionEsperada != null) {
+                builder.tag(new EntityTag(String.valueOf(versionEsperada + 1)));
+            }
+            invalidarCacheJson();
 
-             obj.setId(id); // asegurarse que el ID sea el correcto
-            usuariosDAO.update( obj);
-
-            return Response.ok( obj).build();
+            return builder.entity(obj).build();
         } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error al actualizar cita", e);
+            LOG.log(Level.SEVERE, "Error al actualizar usuario", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Error interno al actualizar cita.")
+                    .entity("Error interno al actualizar usuario.")
                     .build();
         }
     }
@@ -199,20 +257,26 @@ public class UsuarioResource {
         }
 
         try {
-            Usuario obj = usuariosDAO.findById(id);
-            if (obj == null) {
+            if (usuariosDAO.deleteById(id) == 0) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("No se encontró Usuario con id: " + id)
                         .build();
             }
-
-            usuariosDAO.delete(obj);
+            invalidarCacheJson();
             return Response.ok("Usuario eliminado correctamente.").build();
         } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error al eliminar cita", e);
+            LOG.log(Level.SEVERE, "Error al eliminar usuario", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Error interno al eliminar cita.")
+                    .entity("Error interno al eliminar usuario.")
                     .build();
         }
     }
+
+    // El veterinario aparece dentro del JSON de citas, historial y mascotas guardado en CacheJson
+    // (al eliminarlo, la base deja esas filas sin veterinario)
+    private void invalidarCacheJson() {
+        cacheJson.invalidarTipo(Cita.class);
+        cacheJson.invalidarTipo(HistorialMedico.class);
+        cacheJson.invalidarTipo(Mascota.class);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,209 @@
+package control;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgendaVeterinariosTest {
+
+    private static final Integer VETERINARIO = 7;
+
+    private static final LocalDate FECHA = LocalDate.of(2026, 3, 2);
+
+    private static final LocalTime NUEVE = LocalTime.of(9, 0);
+
+    private static AgendaVeterinarios agenda(TransactionSynchronizationRegistry transacciones) {
+        AgendaVeterinarios agenda = new AgendaVeterinarios();
+        agenda.apertura = "08:00";
+        agenda.cierre = "18:00";
+        agenda.minutosPorTurno = 30;
+        agenda.transacciones = transacciones;
+        agenda.init();
+        return agenda;
+    }
+
+    private static List<LocalTime> libres(AgendaVeterinarios agenda) {
+        return agenda.libres(VETERINARIO, FECHA, List::of);
+    }
+
+    @Test
+    void soloLaHoraExactaDeInicioOcupaUnTurno() {
+        AgendaVeterinarios agenda = agenda(null);
+
+        assertEquals(0, agenda.turno(LocalTime.of(8, 0)));
+        assertEquals(2, agenda.turno(NUEVE));
+        assertEquals(19, agenda.turno(LocalTime.of(17, 30)));
+        assertEquals(-1, agenda.turno(LocalTime.of(9, 10)));
+        assertEquals(-1, agenda.turno(LocalTime.of(7, 30)));
+        assertEquals(-1, agenda.turno(LocalTime.of(18, 0)));
+        assertEquals(-1, agenda.turno(null));
+    }
+
+    @Test
+    void laCargaDesdeLaBaseIgnoraHorasIntermedias() {
+        AgendaVeterinarios agenda = agenda(null);
+
+        List<LocalTime> libres = agenda.libres(VETERINARIO, FECHA, () -> List.of(NUEVE, LocalTime.of(10, 10)));
+
+        assertEquals(19, libres.size());
+        assertFalse(libres.contains(NUEVE));
+        assertTrue(libres.contains(LocalTime.of(10, 0)));
+    }
+
+    @Test
+    void reservarOcupaElTurnoYRechazaElSegundo() {
+        AgendaVeterinarios agenda = agenda(null);
+        AtomicInteger altas = new AtomicInteger();
+
+        agenda.reservar(VETERINARIO, FECHA, NUEVE, List::of, altas::incrementAndGet);
+
+        assertThrows(ConflictoException.class,
+                () -> agenda.reservar(VETERINARIO, FECHA, NUEVE, List::of, altas::incrementAndGet));
+        assertEquals(1, altas.get());
+        assertFalse(libres(agenda).contains(NUEVE));
+        assertTrue(agenda.libres(VETERINARIO + 1, FECHA, List::of).contains(NUEVE));
+    }
+
+    @Test
+    void unaHoraIntermediaSoloLaControlaLaBase() {
+        AgendaVeterinarios agenda = agenda(null);
+        AtomicInteger altas = new AtomicInteger();
+
+        agenda.reservar(VETERINARIO, FECHA, LocalTime.of(9, 10), List::of, altas::incrementAndGet);
+        agenda.reservar(VETERINARIO, FECHA, LocalTime.of(9, 10), List::of, altas::incrementAndGet);
+
+        assertEquals(2, altas.get());
+        assertEquals(20, libres(agenda).size());
+    }
+
+    @Test
+    void elRollbackLiberaElTurno() {
+        RegistroFalso transaccion = new RegistroFalso();
+        AgendaVeterinarios agenda = agenda(transaccion);
+
+        agenda.reservar(VETERINARIO, FECHA, NUEVE, List::of, () -> { });
+        assertFalse(libres(agenda).contains(NUEVE));
+
+        transaccion.terminar(Status.STATUS_ROLLEDBACK);
+        assertTrue(libres(agenda).contains(NUEVE));
+    }
+
+    @Test
+    void elCommitMantieneElTurnoOcupado() {
+        RegistroFalso transaccion = new RegistroFalso();
+        AgendaVeterinarios agenda = agenda(transaccion);
+
+        agenda.reservar(VETERINARIO, FECHA, NUEVE, List::of, () -> { });
+        transaccion.terminar(Status.STATUS_COMMITTED);
+
+        assertFalse(libres(agenda).contains(NUEVE));
+    }
+
+    @Test
+    void liberarAlConfirmarEsperaAlCommit() {
+        RegistroFalso transaccion = new RegistroFalso();
+        AgendaVeterinarios agenda = agenda(transaccion);
+        agenda.libres(VETERINARIO, FECHA, () -> List.of(NUEVE));
+
+        agenda.liberarAlConfirmar(VETERINARIO, FECHA, NUEVE);
+        assertFalse(libres(agenda).contains(NUEVE));
+
+        transaccion.terminar(Status.STATUS_COMMITTED);
+        assertTrue(libres(agenda).contains(NUEVE));
+    }
+
+    @Test
+    void unDiaLeidoDuranteUnaInvalidacionNoSeGuarda() {
+        AgendaVeterinarios agenda = agenda(null);
+        AtomicInteger cargas = new AtomicInteger();
+
+        // La modificación confirma mientras se lee el día: lo leído puede estar desactualizado
+        agenda.libres(VETERINARIO, FECHA, () -> {
+            cargas.incrementAndGet();
+            agenda.invalidar(VETERINARIO, FECHA);
+            return List.of(NUEVE);
+        });
+        List<LocalTime> libres = agenda.libres(VETERINARIO, FECHA, () -> {
+            cargas.incrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(2, cargas.get());
+        assertTrue(libres.contains(NUEVE));
+    }
+
+    @Test
+    void unRollbackTrasUnaRecargaNoTocaElDiaNuevo() {
+        RegistroFalso transaccion = new RegistroFalso();
+        AgendaVeterinarios agenda = agenda(transaccion);
+
+        agenda.reservar(VETERINARIO, FECHA, NUEVE, List::of, () -> { });
+        // Fuera de esta transacción se descarta el día y se recarga con una cita confirmada a las 9:00
+        agenda.transacciones = null;
+        agenda.invalidar(VETERINARIO, FECHA);
+        agenda.libres(VETERINARIO, FECHA, () -> List.of(NUEVE));
+        agenda.transacciones = transaccion;
+
+        transaccion.terminar(Status.STATUS_ROLLEDBACK);
+        assertFalse(libres(agenda).contains(NUEVE));
+    }
+
+    /**
+     * Transacción simulada: guarda las sincronizaciones y las ejecuta en terminar().
+     */
+    private static final class RegistroFalso implements TransactionSynchronizationRegistry {
+
+        private final List<Synchronization> sincronizaciones = new ArrayList<>();
+
+        void terminar(int status) {
+            List<Synchronization> pendientes = new ArrayList<>(sincronizaciones);
+            sincronizaciones.clear();
+            pendientes.forEach(s -> s.afterCompletion(status));
+        }
+
+        @Override
+        public Object getTransactionKey() {
+            return this;
+        }
+
+        @Override
+        public void putResource(Object key, Object value) {
+        }
+
+        @Override
+        public Object getResource(Object key) {
+            return null;
+        }
+
+        @Override
+        public void registerInterposedSynchronization(Synchronization sync) {
+            sincronizaciones.add(sync);
+        }
+
+        @Override
+        public int getTransactionStatus() {
+            return Status.STATUS_ACTIVE;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+        }
+
+        @Override
+        public boolean getRollbackOnly() {
+            return false;
+        }
+    }
+}
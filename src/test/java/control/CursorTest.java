@@ -0,0 +1,73 @@
+package control;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorTest {
+
+    private static String base64(String texto) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ordenPorIdIdaYVuelta() {
+        String cursor = AbstractDataPersistence.codificarCursor("id", 42, null);
+
+        assertArrayEquals(new String[] {"id", "42"}, AbstractDataPersistence.decodificarCursor(cursor, null));
+    }
+
+    @Test
+    void ordenPorCampoIdaYVuelta() {
+        String cursor = AbstractDataPersistence.codificarCursor("fecha", 7, LocalDate.of(2026, 3, 2));
+
+        assertArrayEquals(new String[] {"fecha", "7", "2026-03-02"},
+                AbstractDataPersistence.decodificarCursor(cursor, "fecha"));
+    }
+
+    @Test
+    void elValorPuedeTenerSaltosDeLinea() {
+        String cursor = AbstractDataPersistence.codificarCursor("nombre", 3, "Rex\nII");
+
+        assertArrayEquals(new String[] {"nombre", "3", "Rex\nII"},
+                AbstractDataPersistence.decodificarCursor(cursor, "nombre"));
+    }
+
+    @Test
+    void esSeguroEnUrl() {
+        String cursor = AbstractDataPersistence.codificarCursor("nombre", 1, "¿?¿?>>>???");
+
+        assertFalse(cursor.contains("+") || cursor.contains("/") || cursor.contains("="));
+    }
+
+    @Test
+    void rechazaCursorQueNoEsBase64() {
+        assertThrows(ConsultaInvalidaException.class, () -> AbstractDataPersistence.decodificarCursor("no es base64!", null));
+    }
+
+    @Test
+    void rechazaCursorDeOtroOrden() {
+        String porFecha = AbstractDataPersistence.codificarCursor("fecha", 7, LocalDate.of(2026, 3, 2));
+        String porId = AbstractDataPersistence.codificarCursor("id", 7, null);
+
+        assertThrows(ConsultaInvalidaException.class, () -> AbstractDataPersistence.decodificarCursor(porFecha, "nombre"));
+        assertThrows(ConsultaInvalidaException.class, () -> AbstractDataPersistence.decodificarCursor(porFecha, null));
+        assertThrows(ConsultaInvalidaException.class, () -> AbstractDataPersistence.decodificarCursor(porId, "fecha"));
+    }
+
+    @Test
+    void rechazaCursorManipulado() {
+        assertThrows(ConsultaInvalidaException.class, () -> AbstractDataPersistence.decodificarCursor(base64("id"), null));
+        assertThrows(ConsultaInvalidaException.class, () -> AbstractDataPersistence.decodificarCursor(base64(""), null));
+
+        // Estructura válida pero ID alterado: falla al convertirlo al tipo del atributo
+        String[] partes = AbstractDataPersistence.decodificarCursor(base64("id\n1 OR 1=1"), null);
+        assertThrows(ConsultaInvalidaException.class, () -> AbstractDataPersistence.convertir(partes[1], Integer.class));
+    }
+}
@@ -0,0 +1,89 @@
+package control;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FiltroTest {
+
+    @Test
+    void sinFiltroNiOrdenDevuelveNull() {
+        assertNull(Filtro.parse(null, null));
+        assertNull(Filtro.parse(List.of(), " "));
+    }
+
+    @Test
+    void leeCondicionesYOrden() {
+        Filtro filtro = Filtro.parse(List.of("veterinario:eq:2", "estado:in:pendiente|realizada"), "fecha,-hora");
+
+        assertEquals(List.of(
+                new Filtro.Condicion("veterinario", Filtro.Operador.EQ, List.of("2")),
+                new Filtro.Condicion("estado", Filtro.Operador.IN, List.of("pendiente", "realizada"))),
+                filtro.getCondiciones());
+        assertEquals(List.of(new Filtro.Orden("fecha", false), new Filtro.Orden("hora", true)), filtro.getOrden());
+    }
+
+    @Test
+    void elValorPuedeContenerDosPuntos() {
+        Filtro filtro = Filtro.parse(List.of("hora:ge:10:30"), null);
+
+        assertEquals(List.of("10:30"), filtro.getCondiciones().get(0).valores());
+        assertTrue(filtro.getOrden().isEmpty());
+    }
+
+    @Test
+    void elOperadorNoDistingueMayusculas() {
+        Filtro filtro = Filtro.parse(List.of("nombre:Empieza:Fi"), null);
+
+        assertEquals(Filtro.Operador.EMPIEZA, filtro.getCondiciones().get(0).operador());
+    }
+
+    @Test
+    void rechazaSintaxisInvalida() {
+        assertThrows(ConsultaInvalidaException.class, () -> Filtro.parse(List.of("veterinario:eq"), null));
+        assertThrows(ConsultaInvalidaException.class, () -> Filtro.parse(List.of(":eq:2"), null));
+        assertThrows(ConsultaInvalidaException.class, () -> Filtro.parse(List.of("veterinario:like:2"), null));
+        assertThrows(ConsultaInvalidaException.class, () -> Filtro.parse(List.of("baja:nulo:si"), null));
+        assertThrows(ConsultaInvalidaException.class, () -> Filtro.parse(null, "fecha,,hora"));
+        assertThrows(ConsultaInvalidaException.class, () -> Filtro.parse(null, "-"));
+    }
+
+    @Test
+    void limitaCantidadDeFiltros() {
+        assertThrows(ConsultaInvalidaException.class,
+                () -> Filtro.parse(Collections.nCopies(11, "veterinario:eq:2"), null));
+    }
+
+    @Test
+    void limitaValoresDeIn() {
+        String quinientos = String.join("|", Collections.nCopies(500, "1"));
+
+        assertEquals(500, Filtro.parse(List.of("id:in:" + quinientos), null).getCondiciones().get(0).valores().size());
+        assertThrows(ConsultaInvalidaException.class,
+                () -> Filtro.parse(List.of("id:in:" + quinientos + "|1"), null));
+    }
+
+    @Test
+    void laFormaIgnoraLosValores() {
+        Filtro a = Filtro.parse(List.of("veterinario:eq:2", "estado:in:pendiente"), "-fecha");
+        Filtro b = Filtro.parse(List.of("veterinario:eq:7", "estado:in:realizada|cancelada"), "-fecha");
+
+        assertEquals(a.forma(), b.forma());
+        assertFalse(a.forma().contains("2"));
+    }
+
+    @Test
+    void laFormaDistingueOrdenYNulo() {
+        assertNotEquals(Filtro.parse(null, "fecha").forma(), Filtro.parse(null, "-fecha").forma());
+        assertNotEquals(Filtro.parse(List.of("baja:nulo:true"), null).forma(),
+                Filtro.parse(List.of("baja:nulo:false"), null).forma());
+    }
+}
@@ -0,0 +1,51 @@
+package monitoreo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RegistroSentenciasTest {
+
+    @Test
+    void reemplazaLiteralesDeTextoYNumeros() {
+        assertEquals("select * from usuario where nombre = ? and id > ?",
+                RegistroSentencias.normalizar("select * from usuario where nombre = 'O''Hara' and id > 42"));
+        assertEquals("update cita set costo = ? where id = ?",
+                RegistroSentencias.normalizar("update cita set costo = 12.50 where id = 7"));
+    }
+
+    @Test
+    void noTocaNumerosDentroDeIdentificadores() {
+        assertEquals("select c1_0.id from cita c1_0 where c1_0.id = ?",
+                RegistroSentencias.normalizar("select c1_0.id from cita c1_0 where c1_0.id = ?"));
+    }
+
+    @Test
+    void colapsaListasInDeCualquierLargo() {
+        String dos = RegistroSentencias.normalizar("select * from mascota where id in (?, ?)");
+        String cinco = RegistroSentencias.normalizar("select * from mascota where id in (?,?,?,?,?)");
+
+        assertEquals("select * from mascota where id in (?...)", dos);
+        assertEquals(dos, cinco);
+    }
+
+    @Test
+    void colapsaListaInDeUnSoloValor() {
+        String uno = RegistroSentencias.normalizar("select * from mascota where id in (?)");
+        String dos = RegistroSentencias.normalizar("select * from mascota where id in (?, ?)");
+
+        assertEquals(dos, uno);
+    }
+
+    @Test
+    void noColapsaParentesisFueraDeIn() {
+        assertEquals("select * from usuario where lower(nombre) = lower(?)",
+                RegistroSentencias.normalizar("select * from usuario where lower(nombre) = lower(?)"));
+    }
+
+    @Test
+    void colapsaEspacios() {
+        assertEquals("select id from vacuna where mascota = ?",
+                RegistroSentencias.normalizar("  select id\n\tfrom vacuna   where mascota = ?  "));
+    }
+}
@@ -0,0 +1,129 @@
+package rest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CacheJsonTest {
+
+    private static final class Mascota {
+    }
+
+    private static final class Propietario {
+    }
+
+    private static CacheJson cache(long maxBytes) {
+        CacheJson cache = new CacheJson();
+        cache.maxBytes = maxBytes;
+        return cache;
+    }
+
+    private static void guardar(CacheJson cache, Class<?> tipo, int id, int bytes) {
+        cache.guardar(tipo, id, new byte[bytes], "\"" + id + "\"", cache.generacion(tipo));
+    }
+
+    @Test
+    void devuelveLoGuardado() {
+        CacheJson cache = cache(1_000);
+        cache.guardar(Mascota.class, 1, new byte[] {'{', '}'}, "\"v1\"", cache.generacion(Mascota.class));
+
+        CacheJson.Entrada entrada = cache.obtener(Mascota.class, 1);
+        assertEquals("\"v1\"", entrada.etag());
+        assertEquals(2, entrada.json().length);
+        assertNull(cache.obtener(Propietario.class, 1));
+    }
+
+    @Test
+    void alSuperarElPresupuestoDescartaLaMenosUsada() {
+        CacheJson cache = cache(800);
+        for (int id = 1; id <= 8; id++) {
+            guardar(cache, Mascota.class, id, 100);
+        }
+        cache.obtener(Mascota.class, 1);
+
+        guardar(cache, Mascota.class, 9, 100);
+
+        assertNotNull(cache.obtener(Mascota.class, 1));
+        assertNull(cache.obtener(Mascota.class, 2));
+        assertNotNull(cache.obtener(Mascota.class, 9));
+    }
+
+    @Test
+    void reemplazarUnaEntradaNoCuentaDosVeces() {
+        CacheJson cache = cache(800);
+        for (int i = 0; i < 20; i++) {
+            guardar(cache, Mascota.class, 1, 100);
+        }
+        for (int id = 2; id <= 8; id++) {
+            guardar(cache, Mascota.class, id, 100);
+        }
+
+        assertNotNull(cache.obtener(Mascota.class, 1));
+    }
+
+    @Test
+    void noGuardaJsonMayorQueUnOctavoDelPresupuesto() {
+        CacheJson cache = cache(800);
+        guardar(cache, Mascota.class, 1, 101);
+
+        assertNull(cache.obtener(Mascota.class, 1));
+    }
+
+    @Test
+    void noGuardaLoLeidoAntesDeUnaInvalidacion() {
+        CacheJson cache = cache(1_000);
+        long generacion = cache.generacion(Mascota.class);
+
+        cache.invalidar(Mascota.class, 2);
+        cache.guardar(Mascota.class, 1, new byte[10], "\"v1\"", generacion);
+
+        assertNull(cache.obtener(Mascota.class, 1));
+    }
+
+    @Test
+    void invalidarQuitaSoloLaEntidad() {
+        CacheJson cache = cache(1_000);
+        guardar(cache, Mascota.class, 1, 10);
+        guardar(cache, Mascota.class, 2, 10);
+
+        cache.invalidar(Mascota.class, 1);
+
+        assertNull(cache.obtener(Mascota.class, 1));
+        assertNotNull(cache.obtener(Mascota.class, 2));
+    }
+
+    @Test
+    void invalidarTipoQuitaTodasSusEntradasYNadaMas() {
+        CacheJson cache = cache(1_000);
+        guardar(cache, Mascota.class, 1, 10);
+        guardar(cache, Mascota.class, 2, 10);
+        guardar(cache, Propietario.class, 1, 10);
+
+        cache.invalidarTipo(Mascota.class);
+
+        assertNull(cache.obtener(Mascota.class, 1));
+        assertNull(cache.obtener(Mascota.class, 2));
+        assertNotNull(cache.obtener(Propietario.class, 1));
+
+        guardar(cache, Mascota.class, 1, 10);
+        assertNotNull(cache.obtener(Mascota.class, 1));
+    }
+
+    @Test
+    void lasEntradasInvalidadasLiberanPresupuesto() {
+        CacheJson cache = cache(800);
+        for (int id = 1; id <= 8; id++) {
+            guardar(cache, Mascota.class, id, 100);
+        }
+        cache.invalidarTipo(Mascota.class);
+        for (int id = 1; id <= 8; id++) {
+            guardar(cache, Propietario.class, id, 100);
+        }
+
+        for (int id = 1; id <= 8; id++) {
+            assertNotNull(cache.obtener(Propietario.class, id));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package rest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimitadorConcurrenciaTest {
+
+    private static final long MILISEGUNDO = 1_000_000;
+
+    /**
+     * Llena el límite y libera todas las peticiones con la misma latencia.
+     */
+    private static void ronda(LimitadorConcurrencia.Limite limite, long rttNanos) {
+        int adquiridas = 0;
+        while (limite.adquirir()) {
+            adquiridas++;
+        }
+        for (int i = 0; i < adquiridas; i++) {
+            limite.liberar(rttNanos, false);
+        }
+    }
+
+    @Test
+    void noAdmiteMasQueElLimite() {
+        LimitadorConcurrencia.Limite limite = new LimitadorConcurrencia.Limite(2, 1, 10);
+
+        assertTrue(limite.adquirir());
+        assertTrue(limite.adquirir());
+        assertFalse(limite.adquirir());
+        assertEquals(2, limite.getEnVuelo());
+
+        limite.liberar(MILISEGUNDO, false);
+        assertTrue(limite.adquirir());
+    }
+
+    @Test
+    void conLatenciaEstableCreceHastaElMaximo() {
+        LimitadorConcurrencia.Limite limite = new LimitadorConcurrencia.Limite(10, 1, 20);
+
+        for (int i = 0; i < 100; i++) {
+            ronda(limite, MILISEGUNDO);
+        }
+
+        assertEquals(20, limite.getLimite());
+        assertEquals(0, limite.getEnVuelo());
+    }
+
+    @Test
+    void cuandoSubeLaLatenciaBaja() {
+        LimitadorConcurrencia.Limite limite = new LimitadorConcurrencia.Limite(50, 5, 50);
+        for (int i = 0; i < 20; i++) {
+            ronda(limite, MILISEGUNDO);
+        }
+        assertEquals(50, limite.getLimite());
+
+        for (int i = 0; i < 5; i++) {
+            ronda(limite, 20 * MILISEGUNDO);
+        }
+
+        assertTrue(limite.getLimite() < 50, "límite " + limite.getLimite());
+        assertTrue(limite.getLimite() >= 5, "límite " + limite.getLimite());
+    }
+
+    @Test
+    void conPocaCargaNoCambia() {
+        LimitadorConcurrencia.Limite limite = new LimitadorConcurrencia.Limite(10, 1, 50);
+
+        for (int i = 0; i < 100; i++) {
+            limite.adquirir();
+            limite.liberar(i % 2 == 0 ? MILISEGUNDO : 50 * MILISEGUNDO, false);
+        }
+
+        assertEquals(10, limite.getLimite());
+    }
+
+    @Test
+    void unDescarteReduceUnDiezPorCiento() {
+        LimitadorConcurrencia.Limite limite = new LimitadorConcurrencia.Limite(10, 1, 50);
+
+        limite.adquirir();
+        limite.liberar(0, true);
+
+        assertEquals(9, limite.getLimite());
+    }
+
+    @Test
+    void losDescartesNoBajanDelMinimo() {
+        LimitadorConcurrencia.Limite limite = new LimitadorConcurrencia.Limite(10, 3, 50);
+
+        for (int i = 0; i < 50; i++) {
+            limite.adquirir();
+            limite.liberar(0, true);
+        }
+
+        assertEquals(3, limite.getLimite());
+    }
+}